@@ -0,0 +1,146 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Formatters and file write for each output format: a new file (formatted, written and moved into place) and an
+ * unchanged one (formatted, hashed and discarded).
+ * <p>
+ * Run with the 'gc' profiler (<code>mvn -Pjmh test-compile exec:exec</code>) to get the allocation rate.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class FormatterBenchmark
+{
+    /**
+     * Template of the 'template' format.
+     */
+    private static final String TEMPLATE = "${groupId}:${artifactId}:${version}\t${url}";
+
+    /**
+     * Artifacts in the reactor.
+     */
+    @Param( { "10", "1000", "100000" } )
+    private int artifacts;
+
+    /**
+     * Output format.
+     */
+    @Param( { "csv", "json", "ndjson", "xml", "yml", "sh", "bash", "smile", "cbor", "idx", "template" } )
+    private String format;
+
+    /**
+     * Processed manifest.
+     */
+    private ArtifactManifest manifest;
+
+    /**
+     * Formatter of the output format.
+     */
+    private ArtifactFormatter formatter;
+
+    /**
+     * Output file with the current content (unchanged by the writes).
+     */
+    private File outputFile;
+
+    /**
+     * Target of a new file write, deleted before each invocation so the content is always written and moved.
+     */
+    @State( Scope.Thread )
+    public static class NewFile
+    {
+        private File file;
+
+        @Setup( Level.Trial )
+        public void create()
+            throws IOException
+        {
+            file = File.createTempFile( "artifacts", ".new" );
+        }
+
+        @Setup( Level.Invocation )
+        public void delete()
+        {
+            file.delete();
+        }
+
+        @TearDown( Level.Trial )
+        public void tearDown()
+        {
+            file.delete();
+        }
+    }
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        outputFile = File.createTempFile( "artifacts", "." + format );
+        manifest = SyntheticReactor.createManifest( SyntheticReactor.create( artifacts ), outputFile.getPath() );
+        manifest.setTemplate( TemplateFormatter.compile( TEMPLATE ) );
+        formatter = manifest.createFormatter( format );
+        write( outputFile );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        outputFile.delete();
+    }
+
+    @Benchmark
+    public void format()
+        throws Exception
+    {
+        try ( OutputSink out = SyntheticReactor.nullSink() )
+        {
+            formatter.format( manifest.getArtifacts(), out );
+        }
+    }
+
+    @Benchmark
+    public boolean writeFile( NewFile target )
+        throws Exception
+    {
+        return write( target.file );
+    }
+
+    @Benchmark
+    public boolean writeUnchangedFile()
+        throws Exception
+    {
+        return write( outputFile );
+    }
+
+    /**
+     * Formats the artifacts into a file.
+     * @return Whether the file has been written (its content has changed).
+     */
+    private boolean write( File file )
+        throws Exception
+    {
+        try ( OutputSink out = OutputSink.toFile( file.getPath() ) )
+        {
+            formatter.format( manifest.getArtifacts(), out );
+            return out.commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reactor scan ('processAllProjects'), serial and parallel.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class ReactorScanBenchmark
+{
+    /**
+     * Artifacts in the reactor.
+     */
+    @Param( { "10", "1000", "100000" } )
+    private int artifacts;
+
+    /**
+     * Parallel scan.
+     */
+    @Param( { "false", "true" } )
+    private boolean parallelScan;
+
+    /**
+     * Synthetic reactor.
+     */
+    private List<MavenProject> reactor;
+
+    @Setup
+    public void setup()
+    {
+        reactor = SyntheticReactor.create( artifacts );
+    }
+
+    @Benchmark
+    public ArtifactTable processAllProjects()
+        throws Exception
+    {
+        ArtifactManifest manifest = new ArtifactManifest( reactor.get( reactor.size() - 1 ), null, null, "," );
+        manifest.setParallelScan( parallelScan );
+        manifest.processAllProjects( reactor );
+        return manifest.getArtifacts();
+    }
+}
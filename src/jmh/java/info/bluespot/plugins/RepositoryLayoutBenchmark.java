@@ -0,0 +1,61 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * URL calculation of every artifact of the reactor.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class RepositoryLayoutBenchmark
+{
+    /**
+     * Artifacts in the reactor.
+     */
+    @Param( { "10", "1000", "100000" } )
+    private int artifacts;
+
+    /**
+     * Reactor artifacts.
+     */
+    private List<Artifact> reactorArtifacts;
+
+    @Setup
+    public void setup()
+    {
+        reactorArtifacts = new ArrayList<Artifact>();
+        for ( MavenProject project : SyntheticReactor.create( artifacts ) )
+        {
+            reactorArtifacts.add( project.getArtifact() );
+            reactorArtifacts.addAll( project.getAttachedArtifacts() );
+        }
+    }
+
+    @Benchmark
+    public void getUrl( Blackhole blackhole )
+    {
+        RepositoryLayout layout = new RepositoryLayout( "http://localhost:8081/repository/maven-releases/", null );
+        for ( Artifact artifact : reactorArtifacts )
+        {
+            blackhole.consume( layout.getUrl( artifact ) );
+        }
+    }
+}
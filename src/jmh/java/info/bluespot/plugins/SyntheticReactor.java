@@ -0,0 +1,108 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Synthetic reactor for the benchmarks: projects with a main JAR and some attached artifacts.
+ */
+public class SyntheticReactor
+{
+    /**
+     * Attached artifacts of each project: classifier and type.
+     */
+    private static final String[][] ATTACHED =
+        { { "sources", "java-source" }, { "javadoc", "javadoc" }, { "tests", "test-jar" } };
+
+    /**
+     * Modules sharing the same groupId.
+     */
+    private static final int MODULES_PER_GROUP = 20;
+
+    /**
+     * Creates a reactor with (about) the given number of artifacts.
+     */
+    public static List<MavenProject> create( int artifacts )
+    {
+        int projects = Math.max( 1, artifacts / ( ATTACHED.length + 1 ) );
+        List<MavenProject> reactor = new ArrayList<MavenProject>( projects );
+
+        ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy();
+        MavenArtifactRepository releases =
+            new MavenArtifactRepository( "releases", "http://localhost:8081/repository/maven-releases/",
+                                         new DefaultRepositoryLayout(), policy, policy );
+
+        for ( int i = 0; i < projects; i++ )
+        {
+            MavenProject project = new MavenProject();
+            project.setGroupId( "com.acme.group" + ( i / MODULES_PER_GROUP ) );
+            project.setArtifactId( "module-" + i );
+            project.setVersion( "3.2.1" );
+            project.setArtifact( createArtifact( project, null, "jar" ) );
+            project.setReleaseArtifactRepository( releases );
+
+            for ( String[] attached : ATTACHED )
+            {
+                project.addAttachedArtifact( createArtifact( project, attached[0], attached[1] ) );
+            }
+            reactor.add( project );
+        }
+        return reactor;
+    }
+
+    /**
+     * Creates the manifest of a synthetic reactor (already processed).
+     */
+    public static ArtifactManifest createManifest( List<MavenProject> reactor, String outputFile )
+        throws Exception
+    {
+        ArtifactManifest manifest =
+            new ArtifactManifest( reactor.get( reactor.size() - 1 ), outputFile, null, "," );
+        manifest.processAllProjects( reactor );
+        return manifest;
+    }
+
+    /**
+     * Creates an artifact with a handler for its type.
+     */
+    private static Artifact createArtifact( MavenProject project, String classifier, String type )
+    {
+        DefaultArtifactHandler handler = new DefaultArtifactHandler( type );
+        if ( !"pom".equals( type ) && !"war".equals( type ) && !"ear".equals( type ) )
+        {
+            handler.setExtension( "jar" );
+        }
+        return new DefaultArtifact( project.getGroupId(), project.getArtifactId(), project.getVersion(), "compile",
+                                    type, classifier, handler );
+    }
+
+    /**
+     * A sink that discards the output (formatting cost only).
+     */
+    public static OutputSink nullSink()
+    {
+        return new OutputSink( new OutputStream()
+        {
+            public void write( int b )
+            {
+            }
+
+            public void write( byte[] b, int off, int len )
+            {
+            }
+        }, StandardCharsets.UTF_8, true );
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Include/exclude filter of the artifacts, with patterns like 'groupId[:artifactId[:classifier[:type]]]' (missing
+ * fields match anything, '*' matches any sequence of characters inside a field and an empty classifier is the main
+ * artifact). For example: 'com.acme.dist.*' or '*:*:sources'.
+ * <p>
+ * The patterns are compiled once into an automaton for the includes and another one for the excludes, so each
+ * artifact is checked with a single pass over its fields (without building any string).
+ */
+public class ArtifactFilter
+{
+    /**
+     * Fields of an artifact key.
+     */
+    private static final int FIELDS = 4;
+
+    /**
+     * Include patterns (null: everything is included).
+     */
+    private final PatternMatcher includes;
+
+    /**
+     * Exclude patterns (null: nothing is excluded).
+     */
+    private final PatternMatcher excludes;
+
+    /**
+     * Constructor.
+     */
+    private ArtifactFilter( PatternMatcher includes, PatternMatcher excludes )
+    {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * Compiles the include and exclude patterns (null if there isn't any pattern).
+     * @throws MojoFailureException Invalid pattern.
+     */
+    public static ArtifactFilter compile( List<String> includes, List<String> excludes )
+        throws MojoFailureException
+    {
+        PatternMatcher includeMatcher = compile( includes );
+        PatternMatcher excludeMatcher = compile( excludes );
+        if ( includeMatcher == null && excludeMatcher == null )
+        {
+            return null;
+        }
+        return new ArtifactFilter( includeMatcher, excludeMatcher );
+    }
+
+    /**
+     * Whether an artifact passes the filter.
+     */
+    public boolean accept( String groupId, String artifactId, String classifier, String type )
+    {
+        return ( includes == null || matches( includes, groupId, artifactId, classifier, type ) )
+            && ( excludes == null || !matches( excludes, groupId, artifactId, classifier, type ) );
+    }
+
+    /**
+     * Runs the fields ('groupId:artifactId:classifier:type') through an automaton.
+     */
+    private static boolean matches( PatternMatcher matcher, String groupId, String artifactId, String classifier,
+                                    String type )
+    {
+        PatternMatcher.State state = matcher.getInitialState();
+        state = feed( state, groupId );
+        state = feed( state.next( PatternMatcher.SEPARATOR ), artifactId );
+        state = feed( state.next( PatternMatcher.SEPARATOR ), classifier );
+        state = feed( state.next( PatternMatcher.SEPARATOR ), type );
+        return state.isAccepting();
+    }
+
+    /**
+     * Consumes a field (null is an empty field).
+     */
+    private static PatternMatcher.State feed( PatternMatcher.State state, String field )
+    {
+        if ( field != null )
+        {
+            for ( int i = 0; i < field.length() && !state.isDead(); i++ )
+            {
+                state = state.next( field.charAt( i ) );
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Compiles a pattern list, completing the missing fields (null if the list is empty).
+     */
+    private static PatternMatcher compile( List<String> patterns )
+        throws MojoFailureException
+    {
+        if ( patterns == null )
+        {
+            return null;
+        }
+
+        List<String> keys = new ArrayList<String>();
+        for ( String pattern : patterns )
+        {
+            String trimmed = pattern.trim();
+            if ( trimmed.isEmpty() )
+            {
+                continue;
+            }
+
+            String[] fields = trimmed.split( String.valueOf( PatternMatcher.SEPARATOR ), -1 );
+            if ( fields.length > FIELDS )
+            {
+                throw new MojoFailureException( "Invalid artifact pattern: '" + pattern
+                    + "' (expected 'groupId[:artifactId[:classifier[:type]]]')" );
+            }
+
+            StringBuilder key = new StringBuilder( trimmed );
+            for ( int i = fields.length; i < FIELDS; i++ )
+            {
+                key.append( PatternMatcher.SEPARATOR ).append( '*' );
+            }
+            keys.add( key.toString() );
+        }
+        return keys.isEmpty() ? null : new PatternMatcher( keys );
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+/**
+ * Writes an artifact list in a given output format.
+ */
+public interface ArtifactFormatter
+{
+    /**
+     * Writes the artifacts to the output as they are visited.
+     */
+    void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException;
+}
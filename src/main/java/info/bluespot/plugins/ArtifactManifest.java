@@ -0,0 +1,806 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The uploaded artifacts list of a reactor and the way it is written (file, format...).
+ */
+public class ArtifactManifest
+{
+    /**
+     * Project whose distribution management is used for the artifact URLs.
+     */
+    private final MavenProject project;
+
+    /**
+     * Output filename.
+     */
+    private final String outputFile;
+
+    /**
+     * Output format (may be null: calculated from the <code>outputFile</code> extension).
+     */
+    private final String outputFormat;
+
+    /**
+     * CSV separator character.
+     */
+    private final String csvSeparator;
+
+    /**
+     * Several output files (each format is calculated from the file extension). Overrides the single output file.
+     */
+    private List<String> outputFiles = null;
+
+    /**
+     * Artifact list.
+     */
+    private ArtifactTable artifacts = new ArtifactTable();
+
+    /**
+     * Artifact handlers (extensions of the artifact types).
+     */
+    private ArtifactHandlerManager artifactHandlerManager = null;
+
+    /**
+     * Repository layout for the artifact URLs.
+     */
+    private RepositoryLayout layout = null;
+
+    /**
+     * Parallel reactor scan.
+     */
+    private boolean parallelScan = false;
+
+    /**
+     * Threads for the parallel scan (0: the common ForkJoin pool).
+     */
+    private int scanThreads = 0;
+
+    /**
+     * Calculate the size and digests of the artifact files.
+     */
+    private boolean checksums = false;
+
+    /**
+     * Threads for the checksum calculation (0: available processors).
+     */
+    private int checksumThreads = 0;
+
+    /**
+     * Persistent digest cache directory (null: no cache).
+     */
+    private File digestCacheDirectory = null;
+
+    /**
+     * Maximum entries of the digest cache.
+     */
+    private int digestCacheSize = 0;
+
+    /**
+     * Merges the artifacts with the previous manifest (only the modules of this session are replaced).
+     */
+    private boolean incremental = false;
+
+    /**
+     * Include/exclude filter of the artifacts (null: all artifacts).
+     */
+    private ArtifactFilter filter = null;
+
+    /**
+     * Writes a binary index next to the (first) output file.
+     */
+    private boolean index = false;
+
+    /**
+     * Compiled output template (null: the 'template' format is not available).
+     */
+    private TemplateFormatter template = null;
+
+    /**
+     * Build log.
+     */
+    private Log log = new SystemStreamLog();
+
+    /**
+     * Timings and counters of this execution.
+     */
+    private final BuildMetrics metrics = new BuildMetrics();
+
+    /**
+     * Constructor.
+     */
+    public ArtifactManifest( MavenProject project, String outputFile, String outputFormat, String csvSeparator )
+    {
+        this.project = project;
+        this.outputFile = outputFile;
+        this.outputFormat = outputFormat;
+        this.csvSeparator = csvSeparator;
+    }
+
+    /**
+     * Several output files, written from a single reactor scan (each format is calculated from the file extension).
+     */
+    public void setOutputFiles( List<String> outputFiles )
+    {
+        this.outputFiles = outputFiles;
+    }
+
+    /**
+     * Artifact handlers for the artifacts without their own handler.
+     */
+    public void setArtifactHandlerManager( ArtifactHandlerManager artifactHandlerManager )
+    {
+        this.artifactHandlerManager = artifactHandlerManager;
+    }
+
+    /**
+     * Scans the reactor projects in parallel (the resulting order is the same as the serial scan).
+     */
+    public void setParallelScan( boolean parallelScan )
+    {
+        this.parallelScan = parallelScan;
+    }
+
+    /**
+     * Threads for the parallel scan (0: the common ForkJoin pool).
+     */
+    public void setScanThreads( int scanThreads )
+    {
+        this.scanThreads = scanThreads;
+    }
+
+    /**
+     * Calculates the size and digests (SHA-1, SHA-256) of the artifact files.
+     */
+    public void setChecksums( boolean checksums )
+    {
+        this.checksums = checksums;
+    }
+
+    /**
+     * Threads for the checksum calculation (0: available processors).
+     */
+    public void setChecksumThreads( int checksumThreads )
+    {
+        this.checksumThreads = checksumThreads;
+    }
+
+    /**
+     * Persistent digest cache (null directory: no cache).
+     */
+    public void setDigestCache( File digestCacheDirectory, int digestCacheSize )
+    {
+        this.digestCacheDirectory = digestCacheDirectory;
+        this.digestCacheSize = digestCacheSize;
+    }
+
+    /**
+     * Writes a binary index ('.idx', see {@link ManifestIndex}) next to the (first) output file.
+     */
+    public void setIndex( boolean index )
+    {
+        this.index = index;
+    }
+
+    /**
+     * Compiled output template, for the 'template' format (it's also the format of the files without a known
+     * extension).
+     */
+    public void setTemplate( TemplateFormatter template )
+    {
+        this.template = template;
+    }
+
+    /**
+     * Include/exclude filter of the artifacts (null: all artifacts).
+     */
+    public void setFilter( ArtifactFilter filter )
+    {
+        this.filter = filter;
+    }
+
+    /**
+     * Build log (the standard output by default).
+     */
+    public void setLog( Log log )
+    {
+        this.log = log;
+    }
+
+    /**
+     * Timings and counters of this execution.
+     */
+    public BuildMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Writes the timings and counters to the build log.
+     */
+    public void logSummary()
+    {
+        metrics.logSummary( log );
+    }
+
+    /**
+     * Merges the artifacts with the previous manifest (for partial reactor builds: -pl, -am, -rf...).
+     */
+    public void setIncremental( boolean incremental )
+    {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Process all projects looking for artifacts.
+     * @throws MojoFailureException The scan has been interrupted or has failed.
+     */
+    public void processAllProjects( List<MavenProject> reactorProjects )
+        throws MojoFailureException
+    {
+        BuildMetrics.Phase scan = metrics.start( BuildMetrics.SCAN );
+        try
+        {
+            scanProjects( reactorProjects );
+        }
+        finally
+        {
+            scan.close();
+        }
+        metrics.addProjects( reactorProjects.size() );
+        metrics.addArtifacts( this.artifacts.size() );
+
+        if ( checksums )
+        {
+            BuildMetrics.Phase phase = metrics.start( BuildMetrics.CHECKSUMS );
+            try
+            {
+                ChecksumCalculator calculator = new ChecksumCalculator( checksumThreads, log );
+                if ( digestCacheDirectory != null && digestCacheSize > 0 )
+                {
+                    calculator.setCache( new DigestCache( digestCacheDirectory, digestCacheSize ) );
+                }
+                calculator.compute( this.artifacts );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoFailureException( e.getMessage(), e );
+            }
+            finally
+            {
+                phase.close();
+            }
+        }
+
+        if ( incremental )
+        {
+            BuildMetrics.Phase phase = metrics.start( BuildMetrics.MERGE );
+            try
+            {
+                mergePreviousManifest( reactorProjects );
+            }
+            finally
+            {
+                phase.close();
+            }
+        }
+    }
+
+    /**
+     * Merges the artifacts with the previous manifest: its entries are indexed by 'groupId:artifactId:classifier:type'
+     * and the entries of the modules built in this session are replaced in place (new modules are appended).
+     * @throws MojoFailureException The previous manifest cannot be read.
+     */
+    private void mergePreviousManifest( List<MavenProject> reactorProjects )
+        throws MojoFailureException
+    {
+        // The previous manifest: the first existing output file (in a format with the groupId)
+        List<String> files = new ArrayList<String>();
+        List<String> formats = new ArrayList<String>();
+        resolveOutputs( files, formats );
+
+        File previous = null;
+        String previousFormat = null;
+        for ( int i = 0; i < files.size() && previous == null; i++ )
+        {
+            if ( files.get( i ) != null && new File( files.get( i ) ).isFile()
+                && ManifestReader.canRead( formats.get( i ) ) )
+            {
+                previous = new File( files.get( i ) );
+                previousFormat = formats.get( i );
+            }
+        }
+
+        if ( previous == null )
+        {
+            log.info( "There isn't a previous manifest to merge: only the modules of this build are written." );
+            return;
+        }
+
+        List<MavenUploadedArtifact> entries;
+        try
+        {
+            entries = new ManifestReader( csvSeparator ).read( previous, previousFormat );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Error while reading the previous manifest: '" + previous + "'", e );
+        }
+
+        // Artifacts of this session, by module ('groupId:artifactId')
+        Set<String> modules = new HashSet<String>();
+        for ( MavenProject reactorProject : reactorProjects )
+        {
+            modules.add( reactorProject.getGroupId() + ':' + reactorProject.getArtifactId() );
+        }
+        Map<String, List<MavenUploadedArtifact>> current = new LinkedHashMap<String, List<MavenUploadedArtifact>>();
+        for ( int row = 0; row < this.artifacts.size(); row++ )
+        {
+            MavenUploadedArtifact artifact = this.artifacts.get( row );
+            String module = artifact.getGroupId() + ':' + artifact.getArtifactId();
+            modules.add( module );
+            List<MavenUploadedArtifact> list = current.get( module );
+            if ( list == null )
+            {
+                list = new ArrayList<MavenUploadedArtifact>();
+                current.put( module, list );
+            }
+            list.add( artifact );
+        }
+
+        // Previous entries in their order; a rebuilt module takes the place of its first previous entry
+        Map<String, MavenUploadedArtifact> merged = new LinkedHashMap<String, MavenUploadedArtifact>();
+        for ( MavenUploadedArtifact entry : entries )
+        {
+            String module = entry.getGroupId() + ':' + entry.getArtifactId();
+            if ( !modules.contains( module ) )
+            {
+                merged.put( entry.getKey(), entry );
+                continue;
+            }
+
+            List<MavenUploadedArtifact> rebuilt = current.remove( module );
+            if ( rebuilt != null )
+            {
+                for ( MavenUploadedArtifact artifact : rebuilt )
+                {
+                    merged.put( artifact.getKey(), artifact );
+                }
+            }
+        }
+        for ( List<MavenUploadedArtifact> rebuilt : current.values() )
+        {
+            for ( MavenUploadedArtifact artifact : rebuilt )
+            {
+                merged.put( artifact.getKey(), artifact );
+            }
+        }
+
+        log.info( "Merged " + this.artifacts.size() + " artifacts with " + entries.size()
+            + " entries of the previous manifest '" + previous + "'." );
+        this.artifacts = new ArtifactTable();
+        for ( MavenUploadedArtifact artifact : merged.values() )
+        {
+            this.artifacts.add( artifact );
+        }
+    }
+
+    /**
+     * Scans the projects (serially or in parallel) looking for artifacts.
+     */
+    private void scanProjects( List<MavenProject> reactorProjects )
+        throws MojoFailureException
+    {
+        // Without distribution management, we cannot add the artifacts
+        ArtifactRepository repository = this.project.getDistributionManagementArtifactRepository();
+        if ( repository == null )
+        {
+            this.artifacts = new ArtifactTable();
+            metrics.addProjectsSkipped( reactorProjects.size() );
+            return;
+        }
+        this.layout = SharedCaches.getLayout( repository.getUrl(), artifactHandlerManager );
+
+        // URL calculation time of the scan, added up by project (a single metric update)
+        LongAdder layoutTime = new LongAdder();
+
+        if ( parallelScan && reactorProjects.size() > 1 )
+        {
+            this.artifacts = processAllProjectsInParallel( reactorProjects, layoutTime );
+        }
+        else
+        {
+            this.artifacts = new ArtifactTable();
+
+            // The artifacts of each project are stored in the table (as columns) once the project is scanned
+            List<MavenUploadedArtifact> list = new ArrayList<MavenUploadedArtifact>();
+            for ( MavenProject project : reactorProjects )
+            {
+                layoutTime.add( processProject( project, list ) );
+                for ( MavenUploadedArtifact artifact : list )
+                {
+                    this.artifacts.add( artifact );
+                }
+                list.clear();
+            }
+        }
+
+        metrics.addPartialTime( BuildMetrics.LAYOUT, layoutTime.sum() );
+    }
+
+    /**
+     * Parallel version of 'processAllProjects': each project is scanned on its own task and the partial lists are
+     * joined in reactor order.
+     */
+    private ArtifactTable processAllProjectsInParallel( final List<MavenProject> reactorProjects,
+                                                       final LongAdder layoutTime )
+        throws MojoFailureException
+    {
+        ForkJoinPool pool = ( scanThreads > 0 ) ? new ForkJoinPool( scanThreads ) : ForkJoinPool.commonPool();
+
+        List<List<MavenUploadedArtifact>> partials = null;
+        try
+        {
+            // An ordered parallel stream keeps the encounter (reactor) order on 'collect'
+            partials = pool.submit( () -> reactorProjects.parallelStream().map( project -> {
+                List<MavenUploadedArtifact> partial = new ArrayList<MavenUploadedArtifact>();
+                layoutTime.add( processProject( project, partial ) );
+                return partial;
+            } ).collect( Collectors.toList() ) ).get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException( "Interrupted while scanning the reactor projects", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new MojoFailureException( "Error while scanning the reactor projects", e.getCause() );
+        }
+        finally
+        {
+            if ( pool != ForkJoinPool.commonPool() )
+            {
+                pool.shutdown();
+            }
+        }
+
+        ArtifactTable result = new ArtifactTable();
+        for ( List<MavenUploadedArtifact> partial : partials )
+        {
+            for ( MavenUploadedArtifact artifact : partial )
+            {
+                result.add( artifact );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the formatter of an output format (formatters are immutable: they are shared by the executions with the
+     * same configuration).
+     * @throws MojoFailureException Invalid output format.
+     */
+    public ArtifactFormatter createFormatter( final String format )
+        throws MojoFailureException
+    {
+        // The template is compiled (and shared) with the configuration
+        if ( Common.OUTPUT_TEMPLATE.equalsIgnoreCase( format ) )
+        {
+            if ( template == null )
+            {
+                throw new MojoFailureException( "The 'template' format needs a template" );
+            }
+            return template;
+        }
+
+        List<Object> key = Arrays.<Object> asList( "formatter", ( format != null ) ? format.toLowerCase( Locale.ROOT )
+                        : null, csvSeparator, checksums );
+        return SharedCaches.get( key, () -> newFormatter( format ) );
+    }
+
+    /**
+     * Creates the formatter of an output format.
+     * @throws MojoFailureException Invalid output format.
+     */
+    private ArtifactFormatter newFormatter( String format )
+        throws MojoFailureException
+    {
+        if ( Common.OUTPUT_SH_EXPORT.equalsIgnoreCase( format ) )
+        {
+            return new ShExportFormatter();
+        }
+        else if ( Common.OUTPUT_BASH.equalsIgnoreCase( format ) )
+        {
+            return new BashArrayFormatter();
+        }
+        else if ( Common.OUTPUT_JSON.equalsIgnoreCase( format ) )
+        {
+            return new JsonFormatter();
+        }
+        else if ( Common.OUTPUT_NDJSON.equalsIgnoreCase( format ) )
+        {
+            return new NdjsonFormatter();
+        }
+        else if ( Common.OUTPUT_SMILE.equalsIgnoreCase( format ) )
+        {
+            return new SmileFormatter();
+        }
+        else if ( Common.OUTPUT_CBOR.equalsIgnoreCase( format ) )
+        {
+            return new CborFormatter();
+        }
+        else if ( Common.OUTPUT_YAML.equalsIgnoreCase( format ) )
+        {
+            return new YamlFormatter();
+        }
+        else if ( Common.OUTPUT_CSV.equalsIgnoreCase( format ) )
+        {
+            return new CsvFormatter( csvSeparator, checksums );
+        }
+        else if ( Common.OUTPUT_XML.equalsIgnoreCase( format ) )
+        {
+            return new XmlFormatter();
+        }
+        else if ( Common.OUTPUT_INDEX.equalsIgnoreCase( format ) )
+        {
+            return new IndexFormatter();
+        }
+        else
+        {
+            throw new MojoFailureException( "Invalid output format: '" + format + "'" );
+        }
+    }
+
+    /**
+     * Artifact list (after 'processAllProjects').
+     */
+    public ArtifactTable getArtifacts()
+    {
+        return artifacts;
+    }
+
+    /**
+     * Adds the artifacts of a project (POM/main artifact and the attached ones) to a list.
+     * @return The URL calculation time (nanoseconds).
+     */
+    private long processProject( MavenProject project, List<MavenUploadedArtifact> list )
+    {
+        int size = list.size();
+
+        // Adds the current POM artifact
+        long layoutTime = addUploadedArtifact( project, project.getArtifact(), list );
+
+        // And then, the attached artifacts
+        List<Artifact> attachedArtifacts = project.getAttachedArtifacts();
+
+        if ( !attachedArtifacts.isEmpty() )
+        {
+            for ( Artifact artifact : attachedArtifacts )
+            {
+                layoutTime += addUploadedArtifact( project, artifact, list );
+            }
+        }
+
+        // Every artifact of the project has been filtered out
+        if ( list.size() == size )
+        {
+            metrics.addProjectsSkipped( 1 );
+        }
+        return layoutTime;
+    }
+
+    /**
+     * Writes the artifact list to the output.
+     * @throws MojoFailureException Invalid format or an exception while writting the file.
+     */
+    public void write()
+        throws MojoFailureException
+    {
+        // Output files and formats
+        List<String> files = new ArrayList<String>();
+        List<String> formats = new ArrayList<String>();
+        resolveOutputs( files, formats );
+
+        // Check for a empty artifact list
+        if ( this.artifacts.isEmpty() )
+        {
+            log.info( "There aren't any uploaded artifacts." );
+            return;
+        }
+
+        // Output formatters (all formats are checked before writting anything)
+        List<ArtifactFormatter> formatters = new ArrayList<ArtifactFormatter>();
+        for ( String format : formats )
+        {
+            formatters.add( createFormatter( format ) );
+        }
+
+        if ( files.size() == 1 )
+        {
+            writeOutput( files.get( 0 ), formats.get( 0 ), formatters.get( 0 ) );
+            return;
+        }
+
+        // Every formatter reads the same (immutable) artifact list on its own thread
+        ExecutorService pool =
+            Executors.newFixedThreadPool( Math.min( files.size(), Runtime.getRuntime().availableProcessors() ) );
+        try
+        {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for ( int i = 0; i < files.size(); i++ )
+            {
+                final String file = files.get( i );
+                final String format = formats.get( i );
+                final ArtifactFormatter formatter = formatters.get( i );
+                results.add( pool.submit( () -> {
+                    writeOutput( file, format, formatter );
+                    return null;
+                } ) );
+            }
+
+            for ( Future<Void> result : results )
+            {
+                result.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException( "Interrupted while writting the artifact information", e );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof MojoFailureException )
+            {
+                throw (MojoFailureException) e.getCause();
+            }
+            throw new MojoFailureException( "Error while writting the artifact information", e.getCause() );
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Output files and formats: the list of files (format from each extension) or the single file, and the index.
+     */
+    private void resolveOutputs( List<String> files, List<String> formats )
+    {
+        if ( outputFiles != null && !outputFiles.isEmpty() )
+        {
+            for ( String file : outputFiles )
+            {
+                files.add( file.trim() );
+                formats.add( getOutputFormat( file.trim() ) );
+            }
+        }
+        else
+        {
+            files.add( outputFile );
+            formats.add( ( outputFormat != null ) ? outputFormat : getOutputFormat( outputFile ) );
+        }
+
+        // The index is written next to the first output file ('artifacts.csv.gz' -> 'artifacts.csv.idx')
+        if ( index && files.get( 0 ) != null && !Common.OUTPUT_INDEX.equalsIgnoreCase( formats.get( 0 ) ) )
+        {
+            files.add( CompressionSupport.removeExtension( files.get( 0 ) ) + ".idx" );
+            formats.add( Common.OUTPUT_INDEX );
+        }
+    }
+
+    /**
+     * Format of an output file: from its extension, or the template for the other files (if there is a template).
+     */
+    private String getOutputFormat( String file )
+    {
+        String format = Common.getOutputFormat( file );
+        return ( format == null && template != null ) ? Common.OUTPUT_TEMPLATE : format;
+    }
+
+    /**
+     * Writes the artifact list to an output file.
+     * @throws MojoFailureException An exception while writting the file.
+     */
+    private void writeOutput( String file, String format, ArtifactFormatter formatter )
+        throws MojoFailureException
+    {
+        log.info( "Writting artifact information to file '" + file + "' (format '" + format + "')." );
+        try ( OutputSink out = Common.openOutput( file ) )
+        {
+            BuildMetrics.Phase phase = metrics.start( BuildMetrics.FORMAT );
+            try
+            {
+                formatter.format( this.artifacts, out );
+            }
+            finally
+            {
+                phase.close();
+            }
+
+            boolean changed;
+            phase = metrics.start( BuildMetrics.WRITE );
+            try
+            {
+                changed = out.commit();
+            }
+            finally
+            {
+                phase.close();
+            }
+            metrics.addBytesWritten( out.getBytesWritten() );
+
+            if ( !changed )
+            {
+                log.info( "The file '" + file + "' is up to date (unchanged)." );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Error while writting the file: '" + file + "'", e );
+        }
+    }
+
+    /**
+     * Adds an artifact to the upload list
+     * @return The URL calculation time (nanoseconds).
+     */
+    private long addUploadedArtifact( MavenProject project, Artifact artifact, List<MavenUploadedArtifact> list )
+    {
+        // Filtered artifacts are discarded before anything is calculated
+        if ( filter != null && !filter.accept( artifact.getGroupId(), artifact.getArtifactId(),
+                                               artifact.getClassifier(), artifact.getType() ) )
+        {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        String url = layout.getUrl( artifact );
+        long layoutTime = System.nanoTime() - start;
+
+        MavenUploadedArtifact uploadedArtifact =
+            new MavenUploadedArtifact( artifact.getGroupId(), artifact.getArtifactId(), project.getVersion(),
+                                       artifact.getClassifier(), artifact.getType(), url );
+
+        // The POM artifact has no file of its own: it's the project file
+        if ( artifact.getFile() != null )
+        {
+            uploadedArtifact.setFile( artifact.getFile() );
+        }
+        else if ( "pom".equals( artifact.getType() ) )
+        {
+            uploadedArtifact.setFile( project.getFile() );
+        }
+        list.add( uploadedArtifact );
+        return layoutTime;
+    }
+}
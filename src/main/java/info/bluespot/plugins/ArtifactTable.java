@@ -0,0 +1,363 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Column store of the artifact list of a manifest.
+ * <p>
+ * The repeated values (groupId, artifactId, version, classifier, type and the URL directory) are dictionary-encoded:
+ * each row has an int id per column and every distinct value is stored once. The URL file names, which are unique,
+ * are stored as UTF-8 bytes in a single array. The checksums and files have their own columns, created only when they
+ * are used.
+ * <p>
+ * The rows are read through a flyweight: the iterator fills the same {@link MavenUploadedArtifact} for every row, so
+ * the artifacts it returns are only valid until the next call (they must be copied with {@link #get(int)} to be kept).
+ * A table is built by a single thread; once built, it can be read by several threads (each iterator has its own
+ * flyweight).
+ */
+public class ArtifactTable
+    implements Iterable<MavenUploadedArtifact>
+{
+    /**
+     * Initial number of rows.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Column: groupId.
+     */
+    private static final int GROUP_ID = 0;
+
+    /**
+     * Column: artifactId.
+     */
+    private static final int ARTIFACT_ID = 1;
+
+    /**
+     * Column: version.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Column: classifier.
+     */
+    private static final int CLASSIFIER = 3;
+
+    /**
+     * Column: type.
+     */
+    private static final int TYPE = 4;
+
+    /**
+     * Column: URL directory (up to the last '/').
+     */
+    private static final int URL_DIRECTORY = 5;
+
+    /**
+     * Id of a null value.
+     */
+    private static final int NULL = -1;
+
+    /**
+     * Dictionary: values by id.
+     */
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * Dictionary: ids by value.
+     */
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+    /**
+     * Dictionary ids of each row, by column.
+     */
+    private int[][] columns = new int[6][INITIAL_CAPACITY];
+
+    /**
+     * URL file names (UTF-8).
+     */
+    private byte[] names = new byte[INITIAL_CAPACITY * 32];
+
+    /**
+     * End of the file name of each row in 'names' (a row starts where the previous one ends).
+     */
+    private int[] nameEnds = new int[INITIAL_CAPACITY];
+
+    /**
+     * SHA-1 digests (null until a row has one).
+     */
+    private String[] sha1s = null;
+
+    /**
+     * SHA-256 digests (null until a row has one).
+     */
+    private String[] sha256s = null;
+
+    /**
+     * File sizes, -1 if unknown (null until a row has one).
+     */
+    private long[] sizes = null;
+
+    /**
+     * Local files (null until a row has one).
+     */
+    private File[] files = null;
+
+    /**
+     * Number of rows.
+     */
+    private int size = 0;
+
+    /**
+     * Number of rows.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Whether the table has no rows.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Adds a row with the values of an artifact (the artifact is not kept).
+     */
+    public void add( MavenUploadedArtifact artifact )
+    {
+        if ( size == nameEnds.length )
+        {
+            grow();
+        }
+
+        int row = size;
+        columns[GROUP_ID][row] = intern( artifact.getGroupId() );
+        columns[ARTIFACT_ID][row] = intern( artifact.getArtifactId() );
+        columns[VERSION][row] = intern( artifact.getVersion() );
+        columns[CLASSIFIER][row] = intern( artifact.getClassifier() );
+        columns[TYPE][row] = intern( artifact.getType() );
+
+        // URL: the directory (shared by the artifacts of a module) and the file name
+        String url = artifact.getUrl();
+        int start = ( row > 0 ) ? nameEnds[row - 1] : 0;
+        if ( url == null )
+        {
+            columns[URL_DIRECTORY][row] = NULL;
+            nameEnds[row] = start;
+        }
+        else
+        {
+            int slash = url.lastIndexOf( '/' ) + 1;
+            columns[URL_DIRECTORY][row] = intern( url.substring( 0, slash ) );
+            byte[] name = url.substring( slash ).getBytes( StandardCharsets.UTF_8 );
+            if ( start + name.length > names.length )
+            {
+                names = Arrays.copyOf( names, Math.max( names.length * 2, start + name.length ) );
+            }
+            System.arraycopy( name, 0, names, start, name.length );
+            nameEnds[row] = start + name.length;
+        }
+
+        size++;
+        setChecksums( row, artifact.getSha1(), artifact.getSha256(), artifact.getSize() );
+        if ( artifact.getFile() != null )
+        {
+            if ( files == null )
+            {
+                files = new File[nameEnds.length];
+            }
+            files[row] = artifact.getFile();
+        }
+    }
+
+    /**
+     * Sets the checksums of a row (null values are unknown).
+     */
+    public void setChecksums( int row, String sha1, String sha256, Long fileSize )
+    {
+        checkRow( row );
+        if ( sha1 != null || sha1s != null )
+        {
+            sha1s = ( sha1s != null ) ? sha1s : new String[nameEnds.length];
+            sha1s[row] = sha1;
+        }
+        if ( sha256 != null || sha256s != null )
+        {
+            sha256s = ( sha256s != null ) ? sha256s : new String[nameEnds.length];
+            sha256s[row] = sha256;
+        }
+        if ( fileSize != null || sizes != null )
+        {
+            if ( sizes == null )
+            {
+                sizes = new long[nameEnds.length];
+                Arrays.fill( sizes, -1L );
+            }
+            sizes[row] = ( fileSize != null ) ? fileSize : -1L;
+        }
+    }
+
+    /**
+     * Local file of a row (null if none).
+     */
+    public File getFile( int row )
+    {
+        checkRow( row );
+        return ( files != null ) ? files[row] : null;
+    }
+
+    /**
+     * Copy of a row (a new artifact).
+     */
+    public MavenUploadedArtifact get( int row )
+    {
+        checkRow( row );
+        MavenUploadedArtifact artifact = new MavenUploadedArtifact( null, null, null, null, null, null );
+        read( row, artifact );
+        return artifact;
+    }
+
+    /**
+     * Iterator over the rows (a flyweight: the same artifact is returned for every row).
+     */
+    public Iterator<MavenUploadedArtifact> iterator()
+    {
+        return new Iterator<MavenUploadedArtifact>()
+        {
+            private final MavenUploadedArtifact flyweight =
+                new MavenUploadedArtifact( null, null, null, null, null, null );
+
+            private int row = 0;
+
+            public boolean hasNext()
+            {
+                return row < size;
+            }
+
+            public MavenUploadedArtifact next()
+            {
+                if ( row >= size )
+                {
+                    throw new NoSuchElementException();
+                }
+                read( row++, flyweight );
+                return flyweight;
+            }
+        };
+    }
+
+    /**
+     * Fills an artifact with the values of a row.
+     */
+    private void read( int row, MavenUploadedArtifact artifact )
+    {
+        artifact.setGroupId( value( GROUP_ID, row ) );
+        artifact.setArtifactId( value( ARTIFACT_ID, row ) );
+        artifact.setVersion( value( VERSION, row ) );
+        artifact.setClassifier( value( CLASSIFIER, row ) );
+        artifact.setType( value( TYPE, row ) );
+
+        String directory = value( URL_DIRECTORY, row );
+        if ( directory == null )
+        {
+            artifact.setUrl( null );
+        }
+        else
+        {
+            int start = ( row > 0 ) ? nameEnds[row - 1] : 0;
+            artifact.setUrl( directory.concat( new String( names, start, nameEnds[row] - start,
+                                                           StandardCharsets.UTF_8 ) ) );
+        }
+
+        artifact.setSha1( ( sha1s != null ) ? sha1s[row] : null );
+        artifact.setSha256( ( sha256s != null ) ? sha256s[row] : null );
+        artifact.setSize( ( sizes != null && sizes[row] >= 0 ) ? Long.valueOf( sizes[row] ) : null );
+        artifact.setFile( ( files != null ) ? files[row] : null );
+    }
+
+    /**
+     * Dictionary value of a column.
+     */
+    private String value( int column, int row )
+    {
+        int id = columns[column][row];
+        return ( id != NULL ) ? strings.get( id ) : null;
+    }
+
+    /**
+     * Interns a value in the dictionary.
+     */
+    private int intern( String value )
+    {
+        if ( value == null )
+        {
+            return NULL;
+        }
+
+        Integer id = stringIds.get( value );
+        if ( id == null )
+        {
+            id = strings.size();
+            strings.add( value );
+            stringIds.put( value, id );
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the row capacity.
+     */
+    private void grow()
+    {
+        int capacity = nameEnds.length * 2;
+        for ( int i = 0; i < columns.length; i++ )
+        {
+            columns[i] = Arrays.copyOf( columns[i], capacity );
+        }
+        nameEnds = Arrays.copyOf( nameEnds, capacity );
+        if ( sha1s != null )
+        {
+            sha1s = Arrays.copyOf( sha1s, capacity );
+        }
+        if ( sha256s != null )
+        {
+            sha256s = Arrays.copyOf( sha256s, capacity );
+        }
+        if ( sizes != null )
+        {
+            int previous = sizes.length;
+            sizes = Arrays.copyOf( sizes, capacity );
+            Arrays.fill( sizes, previous, capacity, -1L );
+        }
+        if ( files != null )
+        {
+            files = Arrays.copyOf( files, capacity );
+        }
+    }
+
+    /**
+     * Checks a row number.
+     */
+    private void checkRow( int row )
+    {
+        if ( row < 0 || row >= size )
+        {
+            throw new IndexOutOfBoundsException( "Row: " + row + ", size: " + size );
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * File sink that writes to a temporary file next to the target (in UTF-8) and moves it into place atomically on
+ * commit, so readers never see a half-written file.
+ * <p>
+ * The SHA-256 digest of the content is calculated while it's written: if the target already has the same content, it
+ * is not replaced (its modification time doesn't change). Without a commit, the temporary file is discarded.
+ */
+public class AtomicFileSink
+    extends OutputSink
+{
+    /**
+     * Buffer size for the comparison with the existing file.
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Temporary file.
+     */
+    private final Path temp;
+
+    /**
+     * Target file.
+     */
+    private final Path target;
+
+    /**
+     * Digest of the written content.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * Whether the temporary file has been closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Whether the content has been committed (moved into place or discarded as unchanged).
+     */
+    private boolean committed = false;
+
+    /**
+     * Constructor.
+     */
+    private AtomicFileSink( OutputStream stream, MessageDigest digest, Path temp, Path target )
+    {
+        super( stream, StandardCharsets.UTF_8, true );
+        this.temp = temp;
+        this.target = target;
+        this.digest = digest;
+    }
+
+    /**
+     * Opens a sink over a new temporary file in the directory of the target. The content is compressed if the target
+     * has a compression extension ('.gz', '.zst').
+     */
+    public static AtomicFileSink open( Path target )
+        throws IOException
+    {
+        Path absolute = target.toAbsolutePath();
+        Path temp =
+            absolute.resolveSibling( "." + absolute.getFileName() + "." + Long.toHexString( ThreadLocalRandom.current()
+                .nextLong() ) + ".tmp" );
+
+        FileChannel channel = FileChannel.open( temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE );
+        try
+        {
+            // The digest is calculated on the stored (compressed) bytes
+            MessageDigest digest = createDigest();
+            OutputStream stream = new DigestOutputStream( Channels.newOutputStream( channel ), digest );
+            return new AtomicFileSink( CompressionSupport.compress( stream, absolute.getFileName().toString() ),
+                                       digest, temp, absolute );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            channel.close();
+            Files.deleteIfExists( temp );
+            throw e;
+        }
+    }
+
+    /**
+     * Moves the content into place, unless the target has the same content.
+     * @return Whether the target has been replaced.
+     */
+    public boolean commit()
+        throws IOException
+    {
+        closeTemp();
+
+        byte[] hash = digest.digest();
+        boolean changed = !Files.isRegularFile( target ) || Files.size( target ) != Files.size( temp )
+            || !Arrays.equals( hash, hash( target ) );
+
+        if ( changed )
+        {
+            try
+            {
+                Files.move( temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch ( AtomicMoveNotSupportedException e )
+            {
+                Files.move( temp, target, StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        else
+        {
+            Files.delete( temp );
+        }
+
+        committed = true;
+        return changed;
+    }
+
+    /**
+     * Closes the sink (the temporary file is discarded if the content hasn't been committed).
+     */
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            closeTemp();
+        }
+        finally
+        {
+            if ( !committed )
+            {
+                Files.deleteIfExists( temp );
+            }
+        }
+    }
+
+    /**
+     * Flushes and closes the temporary file (once).
+     */
+    private void closeTemp()
+        throws IOException
+    {
+        if ( !closed )
+        {
+            closed = true;
+            super.close();
+        }
+    }
+
+    /**
+     * SHA-256 digest of a file.
+     */
+    private static byte[] hash( Path file )
+        throws IOException
+    {
+        MessageDigest fileDigest = createDigest();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try ( InputStream in = Files.newInputStream( file ) )
+        {
+            int read;
+            while ( ( read = in.read( buffer ) ) > 0 )
+            {
+                fileDigest.update( buffer, 0, read );
+            }
+        }
+        return fileDigest.digest();
+    }
+
+    /**
+     * Creates a SHA-256 digest (standard algorithm, always available).
+     */
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+}
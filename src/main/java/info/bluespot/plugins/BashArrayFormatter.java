@@ -0,0 +1,95 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Bash output: an indexed array per field and an associative array from 'groupId:artifactId:classifier:type' to the
+ * artifact index, so a script sources the whole list with a few assignments and looks up an artifact directly:
+ * <code>${ARTIFACT_URLS[${ARTIFACT_INDEX['g:a::jar']}]}</code>. The values are single-quoted and escaped (null
+ * values are empty). It needs bash 4.2 or newer.
+ */
+public class BashArrayFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        boolean checksums = false;
+        int count = 0;
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            checksums |= artifact.getSize() != null;
+            count++;
+        }
+
+        out.append( "# Artifact list (bash 4.2+): index = ${ARTIFACT_INDEX['groupId:artifactId:classifier:type']}" )
+            .newLine();
+        writeArray( artifacts, out, "ARTIFACT_GROUP_IDS", MavenUploadedArtifact::getGroupId );
+        writeArray( artifacts, out, "ARTIFACT_IDS", MavenUploadedArtifact::getArtifactId );
+        writeArray( artifacts, out, "ARTIFACT_VERSIONS", MavenUploadedArtifact::getVersion );
+        writeArray( artifacts, out, "ARTIFACT_CLASSIFIERS", MavenUploadedArtifact::getClassifier );
+        writeArray( artifacts, out, "ARTIFACT_TYPES", MavenUploadedArtifact::getType );
+        writeArray( artifacts, out, "ARTIFACT_URLS", MavenUploadedArtifact::getUrl );
+        if ( checksums )
+        {
+            writeArray( artifacts, out, "ARTIFACT_SHA1S", MavenUploadedArtifact::getSha1 );
+            writeArray( artifacts, out, "ARTIFACT_SHA256S", MavenUploadedArtifact::getSha256 );
+            writeArray( artifacts, out, "ARTIFACT_SIZES",
+                        artifact -> ( artifact.getSize() != null ) ? String.valueOf( artifact.getSize() ) : null );
+        }
+
+        out.append( "declare -gA ARTIFACT_INDEX=(" ).newLine();
+        int idx = 0;
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            out.append( "  [" ).append( quote( artifact.getKey() ) ).append( "]=" ).append( idx++ ).newLine();
+        }
+        out.append( ")" ).newLine();
+        out.append( "ARTIFACT_COUNT=" ).append( count ).newLine();
+    }
+
+    /**
+     * Writes an indexed array with a field of every artifact.
+     */
+    private static void writeArray( Iterable<MavenUploadedArtifact> artifacts, OutputSink out, String name,
+                                    Function<MavenUploadedArtifact, String> field )
+        throws IOException
+    {
+        out.append( "declare -ga " ).append( name ).append( "=(" ).newLine();
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            out.append( "  " ).append( quote( field.apply( artifact ) ) ).newLine();
+        }
+        out.append( ")" ).newLine();
+    }
+
+    /**
+     * Single-quoted shell word (a single quote is written as '\'').
+     */
+    static String quote( String value )
+    {
+        if ( value == null )
+        {
+            return "''";
+        }
+
+        StringBuilder sb = new StringBuilder( value.length() + 2 ).append( '\'' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '\'' )
+            {
+                sb.append( "'\\''" );
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        return sb.append( '\'' ).toString();
+    }
+}
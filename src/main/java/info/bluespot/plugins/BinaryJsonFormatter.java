@@ -0,0 +1,37 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Binary JSON outputs (Smile, CBOR): an array of artifacts with the same fields as the JSON output, written to the
+ * sink's byte stream.
+ */
+public abstract class BinaryJsonFormatter
+    implements ArtifactFormatter
+{
+    /**
+     * Mapper of the binary format.
+     */
+    protected abstract ObjectMapper getMapper();
+
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        ObjectMapper mapper = getMapper();
+        JsonGenerator generator = mapper.getFactory().createGenerator( out.getStream() );
+
+        generator.writeStartArray();
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            mapper.writeValue( generator, artifact );
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+}
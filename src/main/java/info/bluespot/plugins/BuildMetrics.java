@@ -0,0 +1,222 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Timings and counters of an 'artifacts' goal execution: a summary for the build log and Java Flight Recorder events
+ * (when JFR is available and recording) for each phase.
+ * <p>
+ * The phases may run on several threads: their times are added up.
+ */
+public class BuildMetrics
+{
+    /**
+     * Phase: reactor scan.
+     */
+    public static final String SCAN = "scan";
+
+    /**
+     * Phase: artifact URL calculation (part of the scan, measured by artifact and added up by scan; with a parallel
+     * scan it is the time of all the scan threads, so it may be longer than the scan itself).
+     */
+    public static final String LAYOUT = "layout";
+
+    /**
+     * Phase: checksum calculation.
+     */
+    public static final String CHECKSUMS = "checksums";
+
+    /**
+     * Phase: incremental merge with the previous manifest.
+     */
+    public static final String MERGE = "merge";
+
+    /**
+     * Phase: formatting (streamed to the output).
+     */
+    public static final String FORMAT = "format";
+
+    /**
+     * Phase: file write (the output is moved into place).
+     */
+    public static final String WRITE = "write";
+
+    /**
+     * Phases in summary order.
+     */
+    private static final String[] PHASES = { SCAN, LAYOUT, CHECKSUMS, MERGE, FORMAT, WRITE };
+
+    /**
+     * Flight Recorder events (null if the JFR API or the events class is not available).
+     */
+    private static final FlightRecorderEvents JFR_EVENTS = loadJfrEvents();
+
+    /**
+     * A running phase, closed when it ends.
+     */
+    public class Phase
+        implements AutoCloseable
+    {
+        private final String name;
+
+        private final long start = System.nanoTime();
+
+        private final Object event;
+
+        Phase( String name )
+        {
+            this.name = name;
+            this.event = ( jfr != null ) ? jfr.beginPhase( name ) : null;
+        }
+
+        public void close()
+        {
+            long time = System.nanoTime() - start;
+            addTime( name, time );
+            if ( event != null )
+            {
+                jfr.commitPhase( event, time );
+            }
+        }
+    }
+
+    /**
+     * Time of each phase (nanoseconds).
+     */
+    private final Map<String, LongAdder> times = new ConcurrentHashMap<String, LongAdder>();
+
+    /**
+     * Reactor projects.
+     */
+    private final LongAdder projects = new LongAdder();
+
+    /**
+     * Projects without uploaded artifacts.
+     */
+    private final LongAdder projectsSkipped = new LongAdder();
+
+    /**
+     * Artifacts processed.
+     */
+    private final LongAdder artifacts = new LongAdder();
+
+    /**
+     * Bytes written to the outputs (before compression).
+     */
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Flight Recorder events, if they are emitted (JFR is available and it has been started), or null.
+     */
+    private final FlightRecorderEvents jfr = ( JFR_EVENTS != null && JFR_EVENTS.isRecording() ) ? JFR_EVENTS : null;
+
+    /**
+     * Summary JFR event (null without JFR).
+     */
+    private final Object summaryEvent = ( jfr != null ) ? jfr.beginSummary() : null;
+
+    /**
+     * Starts a phase.
+     */
+    public Phase start( String phase )
+    {
+        return new Phase( phase );
+    }
+
+    /**
+     * Adds time to a phase.
+     */
+    public void addTime( String phase, long nanos )
+    {
+        times.computeIfAbsent( phase, name -> new LongAdder() ).add( nanos );
+    }
+
+    /**
+     * Adds the total time of a phase measured by parts inside another one (e.g. the URL calculation during the scan),
+     * with a single JFR event for the total.
+     */
+    public void addPartialTime( String phase, long nanos )
+    {
+        addTime( phase, nanos );
+        if ( jfr != null )
+        {
+            jfr.commitPhase( jfr.beginPhase( phase ), nanos );
+        }
+    }
+
+    public void addProjects( long count )
+    {
+        projects.add( count );
+    }
+
+    public void addProjectsSkipped( long count )
+    {
+        projectsSkipped.add( count );
+    }
+
+    public void addArtifacts( long count )
+    {
+        artifacts.add( count );
+    }
+
+    public void addBytesWritten( long count )
+    {
+        bytesWritten.add( count );
+    }
+
+    /**
+     * Writes the summary to the build log and commits the summary JFR event.
+     */
+    public void logSummary( Log log )
+    {
+        log.info( "Build-info: " + projects.sum() + " projects (" + projectsSkipped.sum() + " skipped), "
+            + artifacts.sum() + " artifacts, " + bytesWritten.sum() + " bytes written." );
+
+        StringBuilder sb = new StringBuilder( "Build-info timings:" );
+        String separator = " ";
+        for ( String phase : PHASES )
+        {
+            LongAdder time = times.get( phase );
+            if ( time != null )
+            {
+                sb.append( separator ).append( phase ).append( ' ' )
+                    .append( TimeUnit.NANOSECONDS.toMillis( time.sum() ) ).append( " ms" );
+                separator = ", ";
+            }
+        }
+        log.info( sb.append( '.' ).toString() );
+
+        if ( summaryEvent != null )
+        {
+            jfr.commitSummary( summaryEvent, projects.sum(), projectsSkipped.sum(), artifacts.sum(),
+                                     bytesWritten.sum() );
+        }
+    }
+
+    /**
+     * Loads the Flight Recorder events: the JFR API (JDK 11+, 8u262+) and the events class (not built on JDK 8) must
+     * be available.
+     */
+    private static FlightRecorderEvents loadJfrEvents()
+    {
+        try
+        {
+            ClassLoader loader = BuildMetrics.class.getClassLoader();
+            Class.forName( "jdk.jfr.Event", false, loader );
+            return (FlightRecorderEvents) Class.forName( "info.bluespot.plugins.JfrEvents", true, loader )
+                .getDeclaredConstructor().newInstance();
+        }
+        catch ( ReflectiveOperationException | LinkageError e )
+        {
+            return null;
+        }
+    }
+}
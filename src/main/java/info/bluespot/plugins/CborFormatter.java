@@ -0,0 +1,28 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * CBOR (RFC 7049) output.
+ */
+public class CborFormatter
+    extends BinaryJsonFormatter
+{
+    /**
+     * CBOR mapper (shared, thread-safe).
+     */
+    private static final ObjectMapper MAPPER =
+        new ObjectMapper( new CBORFactory().disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET ) )
+            .disable( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+
+    protected ObjectMapper getMapper()
+    {
+        return MAPPER;
+    }
+}
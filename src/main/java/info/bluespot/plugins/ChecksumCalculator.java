@@ -0,0 +1,286 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Calculates the size and the SHA-1/SHA-256 digests of the artifact files.
+ * <p>
+ * The files are read with memory-mapped buffers on a bounded pool of threads, so big archives are hashed
+ * concurrently. The digests of unchanged files are taken from the persistent cache (if any) and the '.sha1' and
+ * '.sha256' files next to an artifact are reused, unless they are older than the artifact: the artifact is only read
+ * if one of them is missing (e.g. only the '.sha1' file is published), to calculate that digest.
+ */
+public class ChecksumCalculator
+{
+    /**
+     * Size of each mapped region.
+     */
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Build log.
+     */
+    private final Log log;
+
+    /**
+     * Persistent digest cache (may be null).
+     */
+    private DigestCache cache = null;
+
+    /**
+     * Constructor.
+     *
+     * @param threads Worker threads (0: available processors).
+     * @param log Build log (cache warnings).
+     */
+    public ChecksumCalculator( int threads, Log log )
+    {
+        this.threads = ( threads > 0 ) ? threads : Runtime.getRuntime().availableProcessors();
+        this.log = log;
+    }
+
+    /**
+     * Persistent digest cache.
+     */
+    public void setCache( DigestCache cache )
+    {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the size and digests of every artifact with a local file.
+     * @throws IOException An error while reading the files.
+     */
+    public void compute( ArtifactTable artifacts )
+        throws IOException
+    {
+        // Each file is processed once, even if it is listed several times (rows by file)
+        Map<File, List<Integer>> files = new LinkedHashMap<File, List<Integer>>();
+        for ( int row = 0; row < artifacts.size(); row++ )
+        {
+            File file = artifacts.getFile( row );
+            if ( file != null && file.isFile() )
+            {
+                List<Integer> rows = files.get( file );
+                if ( rows == null )
+                {
+                    rows = new ArrayList<Integer>( 1 );
+                    files.put( file, rows );
+                }
+                rows.add( row );
+            }
+        }
+
+        if ( files.isEmpty() )
+        {
+            return;
+        }
+
+        if ( cache != null )
+        {
+            try
+            {
+                cache.load();
+            }
+            catch ( IOException e )
+            {
+                log.warn( "The digest cache cannot be read (" + e.getMessage() + "): it will be rebuilt." );
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool( Math.min( threads, files.size() ) );
+        try
+        {
+            Map<File, Future<String[]>> results = new LinkedHashMap<File, Future<String[]>>();
+            for ( final File file : files.keySet() )
+            {
+                results.put( file, pool.submit( () -> digest( file ) ) );
+            }
+
+            for ( Map.Entry<File, Future<String[]>> result : results.entrySet() )
+            {
+                String[] digests = result.getValue().get();
+                for ( int row : files.get( result.getKey() ) )
+                {
+                    artifacts.setChecksums( row, digests[0], digests[1], result.getKey().length() );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while calculating the artifact checksums", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new IOException( "Error while calculating the artifact checksums: " + e.getCause().getMessage(),
+                                   e.getCause() );
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        if ( cache != null )
+        {
+            try
+            {
+                cache.save();
+            }
+            catch ( IOException e )
+            {
+                log.warn( "The digest cache cannot be saved: " + e.getMessage() );
+            }
+        }
+    }
+
+    /**
+     * Gets the SHA-1 and SHA-256 digests of a file (from the cache or the checksum files, if they exist).
+     */
+    public String[] digest( File file )
+        throws IOException
+    {
+        String[] cached = ( cache != null ) ? cache.get( file ) : null;
+        if ( cached != null )
+        {
+            return cached;
+        }
+
+        // The file state is taken before reading it: a file changed meanwhile won't match the cached entry
+        long size = file.length();
+        long lastModified = file.lastModified();
+        String[] digests = calculate( file, lastModified );
+        if ( cache != null )
+        {
+            cache.put( file, size, lastModified, digests[0], digests[1] );
+        }
+        return digests;
+    }
+
+    /**
+     * Calculates the SHA-1 and SHA-256 digests of a file, reusing the checksum files that exist: the file is only read
+     * if one of them is missing, and then only the missing digests are calculated.
+     */
+    private static String[] calculate( File file, long lastModified )
+        throws IOException
+    {
+        String sha1 = readChecksumFile( new File( file.getPath() + ".sha1" ), 40, lastModified );
+        String sha256 = readChecksumFile( new File( file.getPath() + ".sha256" ), 64, lastModified );
+
+        if ( sha1 == null || sha256 == null )
+        {
+            MessageDigest sha1Digest = ( sha1 == null ) ? createDigest( "SHA-1" ) : null;
+            MessageDigest sha256Digest = ( sha256 == null ) ? createDigest( "SHA-256" ) : null;
+
+            try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+            {
+                long size = channel.size();
+                for ( long position = 0; position < size; position += MAPPED_REGION_SIZE )
+                {
+                    MappedByteBuffer region =
+                        channel.map( FileChannel.MapMode.READ_ONLY, position,
+                                     Math.min( MAPPED_REGION_SIZE, size - position ) );
+                    if ( sha1Digest != null )
+                    {
+                        sha1Digest.update( region.duplicate() );
+                    }
+                    if ( sha256Digest != null )
+                    {
+                        sha256Digest.update( region );
+                    }
+                }
+            }
+
+            if ( sha1Digest != null )
+            {
+                sha1 = toHex( sha1Digest.digest() );
+            }
+            if ( sha256Digest != null )
+            {
+                sha256 = toHex( sha256Digest.digest() );
+            }
+        }
+        return new String[] { sha1, sha256 };
+    }
+
+    /**
+     * Reads a checksum file ('&lt;digest&gt;' or '&lt;digest&gt; &lt;filename&gt;'). Returns null if it doesn't
+     * exist, it is older than the artifact (stale: the artifact was rebuilt since) or it is not valid.
+     */
+    private static String readChecksumFile( File checksumFile, int length, long artifactLastModified )
+        throws IOException
+    {
+        if ( !checksumFile.isFile() || checksumFile.lastModified() < artifactLastModified )
+        {
+            return null;
+        }
+
+        String content = new String( Files.readAllBytes( checksumFile.toPath() ), StandardCharsets.US_ASCII ).trim();
+        int end = 0;
+        while ( end < content.length() && Character.digit( content.charAt( end ), 16 ) >= 0 )
+        {
+            end++;
+        }
+        return ( end == length ) ? content.substring( 0, end ).toLowerCase() : null;
+    }
+
+    /**
+     * Creates a message digest (standard algorithms, always available).
+     */
+    private static MessageDigest createDigest( String algorithm )
+    {
+        try
+        {
+            return MessageDigest.getInstance( algorithm );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Hexadecimal representation of a digest.
+     */
+    public static String toHex( byte[] bytes )
+    {
+        char[] chars = new char[bytes.length * 2];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            chars[2 * i] = HEX_DIGITS[( bytes[i] >> 4 ) & 0x0F];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String( chars );
+    }
+}
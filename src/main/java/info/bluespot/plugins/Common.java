@@ -3,10 +3,7 @@
  */
 package info.bluespot.plugins;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 
 import org.apache.maven.plugin.MojoFailureException;
 
@@ -20,11 +17,31 @@ public class Common
      */
     public static String OUTPUT_SH_EXPORT = "sh";
 
+    /**
+     * Output format: bash arrays
+     */
+    public static String OUTPUT_BASH = "bash";
+
     /**
      * Output format: JSON
      */
     public static String OUTPUT_JSON = "json";
 
+    /**
+     * Output format: newline delimited JSON (one record per line)
+     */
+    public static String OUTPUT_NDJSON = "ndjson";
+
+    /**
+     * Output format: Smile (binary JSON)
+     */
+    public static String OUTPUT_SMILE = "smile";
+
+    /**
+     * Output format: CBOR (binary JSON)
+     */
+    public static String OUTPUT_CBOR = "cbor";
+
     /**
      * Output format: CSV
      */
@@ -40,17 +57,41 @@ public class Common
      */
     public static String OUTPUT_XML = "xml";
 
+    /**
+     * Output format: binary index (sorted by artifact key)
+     */
+    public static String OUTPUT_INDEX = "idx";
+
+    /**
+     * Output format: user-defined template (a line per artifact)
+     */
+    public static String OUTPUT_TEMPLATE = "template";
+
     /**
      * Obtiene el formato de salida, ya sea de la propiedad 'outputFormat' o de la extensión del fichero.
      */
-    public static String getOutputFormat( String outputFile )
+    public static String getOutputFormat( String file )
     {
+        // Compressed files ('.json.gz', '.xml.zst'...): the format of the inner extension
+        String outputFile = CompressionSupport.removeExtension( file );
         String format = null;
 
         if ( outputFile.endsWith( ".json" ) )
         {
             format = "json";
         }
+        else if ( outputFile.endsWith( ".ndjson" ) || outputFile.endsWith( ".jsonl" ) )
+        {
+            format = "ndjson";
+        }
+        else if ( outputFile.endsWith( ".smile" ) || outputFile.endsWith( ".sml" ) )
+        {
+            format = "smile";
+        }
+        else if ( outputFile.endsWith( ".cbor" ) )
+        {
+            format = "cbor";
+        }
         else if ( outputFile.endsWith( ".csv" ) )
         {
             format = "csv";
@@ -67,40 +108,35 @@ public class Common
         {
             format = "sh";
         }
+        else if ( outputFile.endsWith( ".bash" ) )
+        {
+            format = "bash";
+        }
+        else if ( outputFile.endsWith( ".idx" ) )
+        {
+            format = "idx";
+        }
         return ( format );
     }
 
     /**
-     * Writes the output to a file.
-     * @throws MojoFailureException An exception while writting the file.
+     * Opens the output: a file (if given) or the standard output.
+     * @throws MojoFailureException An exception while opening the file.
      */
-    public static void writeToFile( ArrayList<String> output, String outputFile ) throws MojoFailureException
+    public static OutputSink openOutput( String outputFile ) throws MojoFailureException
     {
-        if ( outputFile != null )
+        if ( outputFile == null )
+        {
+            return OutputSink.toStdout();
+        }
+
+        try
         {
-            // Write to a file
-            try
-            {
-                BufferedWriter writer = new BufferedWriter( new FileWriter( outputFile ) );
-                for ( String line : output )
-                {
-                    writer.write( line );
-                    writer.newLine();
-                }
-                writer.close();
-            }
-            catch ( IOException e )
-            {
-                throw new MojoFailureException( "Error while writting the file: '" + outputFile + "'", e );
-            }
+            return OutputSink.toFile( outputFile );
         }
-        else
+        catch ( IOException e )
         {
-            // Show the information to STDOUT
-            for ( String line : output )
-            {
-                System.out.println( line );
-            }
+            throw new MojoFailureException( "Error while writting the file: '" + outputFile + "'", e );
         }
     }
 }
@@ -0,0 +1,122 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming compression of the output files, selected by the file extension ('.gz', '.zst').
+ * <p>
+ * The content is compressed while it is written, so the uncompressed document is never held or stored. The Zstandard
+ * codec (zstd-jni) is only loaded when a '.zst' file is used.
+ */
+public class CompressionSupport
+{
+    /**
+     * Compression: gzip.
+     */
+    public static final String GZIP = "gz";
+
+    /**
+     * Compression: Zstandard.
+     */
+    public static final String ZSTD = "zst";
+
+    /**
+     * Buffer size of the compressors.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Zstandard compression level (the zstd default).
+     */
+    private static final int ZSTD_LEVEL = 3;
+
+    /**
+     * Gets the compression of a file from its extension (null: not compressed).
+     */
+    public static String getCompression( String file )
+    {
+        if ( file == null )
+        {
+            return null;
+        }
+        else if ( file.endsWith( ".gz" ) )
+        {
+            return GZIP;
+        }
+        else if ( file.endsWith( ".zst" ) )
+        {
+            return ZSTD;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the compression extension of a file name (if any).
+     */
+    public static String removeExtension( String file )
+    {
+        String compression = getCompression( file );
+        return ( compression != null ) ? file.substring( 0, file.length() - compression.length() - 1 ) : file;
+    }
+
+    /**
+     * Wraps a stream with the compressor of a file (or returns it as is).
+     */
+    public static OutputStream compress( OutputStream out, String file )
+        throws IOException
+    {
+        String compression = getCompression( file );
+        if ( GZIP.equals( compression ) )
+        {
+            return new GZIPOutputStream( out, BUFFER_SIZE );
+        }
+        else if ( ZSTD.equals( compression ) )
+        {
+            return Zstd.compress( out );
+        }
+        return out;
+    }
+
+    /**
+     * Wraps a stream with the decompressor of a file (or returns it as is).
+     */
+    public static InputStream decompress( InputStream in, String file )
+        throws IOException
+    {
+        String compression = getCompression( file );
+        if ( GZIP.equals( compression ) )
+        {
+            return new GZIPInputStream( in, BUFFER_SIZE );
+        }
+        else if ( ZSTD.equals( compression ) )
+        {
+            return Zstd.decompress( in );
+        }
+        return in;
+    }
+
+    /**
+     * Zstandard codec (a separate class, so zstd-jni is only loaded when it's needed).
+     */
+    private static class Zstd
+    {
+        static OutputStream compress( OutputStream out )
+            throws IOException
+        {
+            return new com.github.luben.zstd.ZstdOutputStream( out, ZSTD_LEVEL );
+        }
+
+        static InputStream decompress( InputStream in )
+            throws IOException
+        {
+            return new com.github.luben.zstd.ZstdInputStream( in );
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+/**
+ * CSV output.
+ */
+public class CsvFormatter
+    implements ArtifactFormatter
+{
+    /**
+     * CSV separator character.
+     */
+    private final String separator;
+
+    /**
+     * Adds the checksum columns (sha1, sha256, size).
+     */
+    private final boolean checksums;
+
+    /**
+     * Constructor.
+     */
+    public CsvFormatter( String separator, boolean checksums )
+    {
+        this.separator = separator;
+        this.checksums = checksums;
+    }
+
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        out.append( "#groupId" ).append( separator );
+        out.append( "artifactId" ).append( separator );
+        out.append( "version" ).append( separator );
+        out.append( "type" ).append( separator );
+        out.append( "classifier" ).append( separator );
+        out.append( "url" );
+        if ( checksums )
+        {
+            out.append( separator ).append( "sha1" ).append( separator ).append( "sha256" ).append( separator )
+                .append( "size" );
+        }
+        out.newLine();
+
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            out.append( artifact.getGroupId() ).append( separator );
+            out.append( artifact.getArtifactId() ).append( separator );
+            out.append( artifact.getVersion() ).append( separator );
+            out.append( artifact.getType() ).append( separator );
+            out.append( artifact.getClassifier() ).append( separator );
+            out.append( artifact.getUrl() );
+            if ( checksums )
+            {
+                // Artifacts without a file have empty checksum fields
+                out.append( separator ).append( emptyIfNull( artifact.getSha1() ) ).append( separator )
+                    .append( emptyIfNull( artifact.getSha256() ) ).append( separator )
+                    .append( ( artifact.getSize() != null ) ? artifact.getSize().toString() : "" );
+            }
+            out.newLine();
+        }
+    }
+
+    /**
+     * Value of an optional field ('' if null).
+     */
+    private static String emptyIfNull( String value )
+    {
+        return ( value != null ) ? value : "";
+    }
+}
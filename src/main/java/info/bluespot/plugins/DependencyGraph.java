@@ -0,0 +1,274 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Dependency graph of a reactor: an artifact per node and the resolved dependencies as edges.
+ * <p>
+ * The coordinates are interned in a string dictionary shared by all the nodes (each node is a row of int ids in
+ * column arrays), a node is created once per artifact whatever the number of modules that use it, and each edge is a
+ * long (the two node numbers), so large reactors take little memory. The edges are sorted and deduplicated when the
+ * graph is written.
+ */
+public class DependencyGraph
+{
+    /**
+     * Initial capacity of the node and edge arrays.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * String dictionary: values by id.
+     */
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * String dictionary: ids by value.
+     */
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+    /**
+     * Node numbers by artifact id ('groupId:artifactId:type[:classifier]:version', as in the dependency trails).
+     */
+    private final Map<String, Integer> nodeIds = new HashMap<String, Integer>();
+
+    /**
+     * Node columns (string ids): groupId, artifactId, version, type and classifier (-1 if none).
+     */
+    private int[][] nodes = new int[5][INITIAL_CAPACITY];
+
+    /**
+     * Whether each node is a reactor module.
+     */
+    private boolean[] modules = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * Number of nodes.
+     */
+    private int nodeCount = 0;
+
+    /**
+     * Edges: the source node in the high int, the target node in the low int.
+     */
+    private long[] edges = new long[INITIAL_CAPACITY];
+
+    /**
+     * Number of edges (including duplicates until the graph is compacted).
+     */
+    private int edgeCount = 0;
+
+    /**
+     * Number of edges already sorted and deduplicated.
+     */
+    private int compacted = 0;
+
+    /**
+     * Adds a reactor module (a node marked as module).
+     * @return The node number.
+     */
+    public int addModule( Artifact artifact )
+    {
+        int node = addNode( artifact );
+        modules[node] = true;
+        return node;
+    }
+
+    /**
+     * Adds an artifact (once).
+     * @return The node number.
+     */
+    public int addNode( Artifact artifact )
+    {
+        String id = artifact.getId();
+        Integer node = nodeIds.get( id );
+        if ( node != null )
+        {
+            return node;
+        }
+
+        if ( nodeCount == modules.length )
+        {
+            int capacity = nodeCount * 2;
+            for ( int i = 0; i < nodes.length; i++ )
+            {
+                nodes[i] = Arrays.copyOf( nodes[i], capacity );
+            }
+            modules = Arrays.copyOf( modules, capacity );
+        }
+
+        int number = nodeCount++;
+        nodes[0][number] = intern( artifact.getGroupId() );
+        nodes[1][number] = intern( artifact.getArtifactId() );
+        nodes[2][number] = intern( artifact.getBaseVersion() );
+        nodes[3][number] = intern( artifact.getType() );
+        nodes[4][number] = ( artifact.getClassifier() != null ) ? intern( artifact.getClassifier() ) : -1;
+        nodeIds.put( id, number );
+        return number;
+    }
+
+    /**
+     * Node number of an artifact id (-1 if it isn't in the graph).
+     */
+    public int getNode( String id )
+    {
+        Integer node = nodeIds.get( id );
+        return ( node != null ) ? node : -1;
+    }
+
+    /**
+     * Adds a dependency edge.
+     */
+    public void addEdge( int from, int to )
+    {
+        if ( edgeCount == edges.length )
+        {
+            // Duplicates are dropped before growing (modules share most of their dependencies)
+            compact();
+            if ( edgeCount > edges.length / 2 )
+            {
+                edges = Arrays.copyOf( edges, edges.length * 2 );
+            }
+        }
+        edges[edgeCount++] = ( (long) from << 32 ) | ( to & 0xFFFFFFFFL );
+    }
+
+    /**
+     * Number of nodes.
+     */
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * Number of distinct edges.
+     */
+    public int getEdgeCount()
+    {
+        compact();
+        return edgeCount;
+    }
+
+    /**
+     * Writes the graph as JSON: the nodes (with their number as 'id') and the edges as [from, to] pairs (a node per
+     * line and 16 edges per line).
+     */
+    public void writeJson( OutputSink out )
+        throws IOException
+    {
+        compact();
+        JsonGenerator generator = JsonSupport.createGenerator( out, false );
+
+        generator.writeStartObject();
+        generator.writeArrayFieldStart( "nodes" );
+        for ( int node = 0; node < nodeCount; node++ )
+        {
+            generator.writeStartObject();
+            generator.writeNumberField( "id", node );
+            generator.writeStringField( "groupId", strings.get( nodes[0][node] ) );
+            generator.writeStringField( "artifactId", strings.get( nodes[1][node] ) );
+            generator.writeStringField( "version", strings.get( nodes[2][node] ) );
+            generator.writeStringField( "type", strings.get( nodes[3][node] ) );
+            if ( nodes[4][node] >= 0 )
+            {
+                generator.writeStringField( "classifier", strings.get( nodes[4][node] ) );
+            }
+            generator.writeBooleanField( "module", modules[node] );
+            generator.writeEndObject();
+            generator.writeRaw( OutputSink.LINE_SEPARATOR );
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart( "edges" );
+        for ( int i = 0; i < edgeCount; i++ )
+        {
+            generator.writeStartArray();
+            generator.writeNumber( (int) ( edges[i] >>> 32 ) );
+            generator.writeNumber( (int) edges[i] );
+            generator.writeEndArray();
+            if ( i % 16 == 15 )
+            {
+                generator.writeRaw( OutputSink.LINE_SEPARATOR );
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+
+        out.newLine();
+    }
+
+    /**
+     * Writes the graph as TGF (Trivial Graph Format): 'number label' per node, '#' and 'from to' per edge.
+     */
+    public void writeTgf( OutputSink out )
+        throws IOException
+    {
+        compact();
+        for ( int node = 0; node < nodeCount; node++ )
+        {
+            out.append( node ).append( " " ).append( strings.get( nodes[0][node] ) ).append( ":" )
+                .append( strings.get( nodes[1][node] ) ).append( ":" ).append( strings.get( nodes[3][node] ) );
+            if ( nodes[4][node] >= 0 )
+            {
+                out.append( ":" ).append( strings.get( nodes[4][node] ) );
+            }
+            out.append( ":" ).append( strings.get( nodes[2][node] ) ).newLine();
+        }
+        out.append( "#" ).newLine();
+        for ( int i = 0; i < edgeCount; i++ )
+        {
+            out.append( (int) ( edges[i] >>> 32 ) ).append( " " ).append( (int) edges[i] ).newLine();
+        }
+    }
+
+    /**
+     * Interns a string in the dictionary.
+     */
+    private int intern( String value )
+    {
+        Integer id = stringIds.get( value );
+        if ( id == null )
+        {
+            id = strings.size();
+            strings.add( value );
+            stringIds.put( value, id );
+        }
+        return id;
+    }
+
+    /**
+     * Sorts and deduplicates the edges (the node numbers are non-negative, so the longs sort by source, then target).
+     */
+    private void compact()
+    {
+        if ( compacted == edgeCount )
+        {
+            return;
+        }
+
+        Arrays.sort( edges, 0, edgeCount );
+        int unique = 0;
+        for ( int i = 0; i < edgeCount; i++ )
+        {
+            if ( unique == 0 || edges[i] != edges[unique - 1] )
+            {
+                edges[unique++] = edges[i];
+            }
+        }
+        edgeCount = unique;
+        compacted = unique;
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Compares two manifests written by the 'artifacts' goal (in any readable format) and writes the added, removed and
+ * changed artifacts as CSV.
+ * <p>
+ * The artifacts are matched by their key ('groupId:artifactId:classifier:type'): a different version, URL or
+ * checksum (if both manifests have it) is a change. Both manifests are sorted by key with an external sort and then
+ * merged in a single pass, so the memory used doesn't depend on their size.
+ */
+@Mojo( name = "diff", requiresProject = false, threadSafe = true )
+public class DiffManifests
+    extends AbstractMojo
+{
+    /**
+     * Change kind: only in the new manifest.
+     */
+    private static final String ADDED = "added";
+
+    /**
+     * Change kind: only in the old manifest.
+     */
+    private static final String REMOVED = "removed";
+
+    /**
+     * Change kind: in both manifests, with different values.
+     */
+    private static final String CHANGED = "changed";
+
+    /**
+     * Old manifest (e.g. the previous release).
+     */
+    @Parameter( property = "oldManifest", required = true, readonly = true )
+    private File oldManifest;
+
+    /**
+     * New manifest.
+     */
+    @Parameter( property = "newManifest", required = true, readonly = true )
+    private File newManifest;
+
+    /**
+     * Output filename (the standard output if not set).
+     */
+    @Parameter( property = "outputFile", required = false, readonly = true )
+    private String outputFile;
+
+    /**
+     * CSV separator character (for the CSV manifests and the output).
+     */
+    @Parameter( defaultValue = ",", property = "csvSeparator", required = false, readonly = true )
+    private String csvSeparator;
+
+    /**
+     * Maximum number of artifacts kept in memory (per manifest) while sorting; bigger manifests are sorted in
+     * temporary files.
+     */
+    @Parameter( defaultValue = "100000", property = "sortBufferSize", required = false, readonly = true )
+    private int sortBufferSize;
+
+    /**
+     * Fails the build if the manifests are different.
+     */
+    @Parameter( defaultValue = "false", property = "failOnChanges", required = false, readonly = true )
+    private boolean failOnChanges;
+
+    /**
+     * Mojo's main method.
+     */
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        ManifestReader reader = new ManifestReader( csvSeparator );
+        int[] counts = new int[3];
+
+        try ( ManifestSorter oldSorter = sort( reader, oldManifest );
+                        ManifestSorter newSorter = sort( reader, newManifest );
+                        OutputSink out = Common.openOutput( outputFile ) )
+        {
+            writeHeader( out );
+            merge( oldSorter.sort(), newSorter.sort(), out, counts );
+            if ( outputFile != null && !out.commit() )
+            {
+                getLog().info( "Diff file '" + outputFile + "' is up to date (unchanged)." );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Error while comparing the manifests: " + e.getMessage(), e );
+        }
+
+        getLog().info( "Diff: " + counts[0] + " added, " + counts[1] + " removed, " + counts[2] + " changed." );
+        if ( failOnChanges && counts[0] + counts[1] + counts[2] > 0 )
+        {
+            throw new MojoFailureException( "The manifests '" + oldManifest + "' and '" + newManifest
+                + "' are different" );
+        }
+    }
+
+    /**
+     * Reads a manifest into a sorter (its format is taken from the file extension).
+     */
+    private ManifestSorter sort( ManifestReader reader, File manifest )
+        throws IOException, MojoFailureException
+    {
+        String format = Common.getOutputFormat( manifest.getName() );
+        if ( !ManifestReader.canRead( format ) )
+        {
+            throw new MojoFailureException( "The manifest '" + manifest + "' cannot be read (unknown format)" );
+        }
+
+        ManifestSorter sorter = new ManifestSorter( sortBufferSize, null );
+        try
+        {
+            reader.read( manifest, format, sorter::add );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            sorter.close();
+            throw e;
+        }
+        return sorter;
+    }
+
+    /**
+     * Merge join of the sorted manifests (equal keys are paired in order).
+     */
+    private void merge( ManifestSorter.Cursor oldCursor, ManifestSorter.Cursor newCursor, OutputSink out,
+                        int[] counts )
+        throws IOException
+    {
+        MavenUploadedArtifact oldArtifact = oldCursor.next();
+        MavenUploadedArtifact newArtifact = newCursor.next();
+        String oldKey = ( oldArtifact != null ) ? oldArtifact.getKey() : null;
+        String newKey = ( newArtifact != null ) ? newArtifact.getKey() : null;
+
+        while ( oldArtifact != null || newArtifact != null )
+        {
+            int comparison =
+                ( oldArtifact == null ) ? 1 : ( newArtifact == null ) ? -1 : oldKey.compareTo( newKey );
+
+            if ( comparison < 0 )
+            {
+                writeChange( out, REMOVED, oldArtifact, null );
+                counts[1]++;
+            }
+            else if ( comparison > 0 )
+            {
+                writeChange( out, ADDED, newArtifact, null );
+                counts[0]++;
+            }
+            else if ( isChanged( oldArtifact, newArtifact ) )
+            {
+                writeChange( out, CHANGED, newArtifact, oldArtifact );
+                counts[2]++;
+            }
+
+            if ( comparison <= 0 )
+            {
+                oldArtifact = oldCursor.next();
+                oldKey = ( oldArtifact != null ) ? oldArtifact.getKey() : null;
+            }
+            if ( comparison >= 0 )
+            {
+                newArtifact = newCursor.next();
+                newKey = ( newArtifact != null ) ? newArtifact.getKey() : null;
+            }
+        }
+    }
+
+    /**
+     * Whether two artifacts with the same key are different (the checksums are compared if both have them).
+     */
+    private static boolean isChanged( MavenUploadedArtifact before, MavenUploadedArtifact after )
+    {
+        return !Objects.equals( before.getVersion(), after.getVersion() )
+            || !Objects.equals( before.getUrl(), after.getUrl() ) || isChanged( before.getSha1(), after.getSha1() )
+            || isChanged( before.getSha256(), after.getSha256() ) || isChanged( before.getSize(), after.getSize() );
+    }
+
+    /**
+     * Whether an optional value has changed (unknown values are not compared).
+     */
+    private static boolean isChanged( Object before, Object after )
+    {
+        return before != null && after != null && !before.equals( after );
+    }
+
+    /**
+     * Writes the CSV header.
+     */
+    private void writeHeader( OutputSink out )
+        throws IOException
+    {
+        out.append( "#change" );
+        for ( String column : new String[] { "groupId", "artifactId", "classifier", "type", "version", "url", "sha1",
+            "sha256", "size", "previousVersion", "previousUrl", "previousSha1", "previousSha256", "previousSize" } )
+        {
+            out.append( csvSeparator ).append( column );
+        }
+        out.newLine();
+    }
+
+    /**
+     * Writes a change: the artifact values (the new ones, or the old ones for a removed artifact) and, for a change,
+     * the previous values.
+     */
+    private void writeChange( OutputSink out, String change, MavenUploadedArtifact artifact,
+                              MavenUploadedArtifact previous )
+        throws IOException
+    {
+        out.append( change );
+        out.append( csvSeparator ).append( artifact.getGroupId() );
+        out.append( csvSeparator ).append( artifact.getArtifactId() );
+        out.append( csvSeparator ).append( artifact.getClassifier() );
+        out.append( csvSeparator ).append( artifact.getType() );
+        out.append( csvSeparator ).append( artifact.getVersion() );
+        out.append( csvSeparator ).append( artifact.getUrl() );
+        out.append( csvSeparator ).append( artifact.getSha1() );
+        out.append( csvSeparator ).append( artifact.getSha256() );
+        out.append( csvSeparator ).append( String.valueOf( artifact.getSize() ) );
+        out.append( csvSeparator ).append( ( previous != null ) ? previous.getVersion() : null );
+        out.append( csvSeparator ).append( ( previous != null ) ? previous.getUrl() : null );
+        out.append( csvSeparator ).append( ( previous != null ) ? previous.getSha1() : null );
+        out.append( csvSeparator ).append( ( previous != null ) ? previous.getSha256() : null );
+        out.append( csvSeparator ).append( ( previous != null ) ? String.valueOf( previous.getSize() ) : null );
+        out.newLine();
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent cache of artifact digests, keyed by file path, size and last modification time.
+ * <p>
+ * The entries are kept in LRU order and the cache is bounded: the least recently used entries are evicted. Several
+ * builds may share the cache file: it is read and written under a file lock, the entries added by other builds
+ * meanwhile are merged on save and the file is replaced atomically.
+ */
+public class DigestCache
+{
+    /**
+     * Cache file name.
+     */
+    private static final String CACHE_FILE = "digests.cache";
+
+    /**
+     * Lock file name.
+     */
+    private static final String LOCK_FILE = "digests.lock";
+
+    /**
+     * Maximum wait for a file lock held by another class loader of this JVM, in milliseconds.
+     */
+    private static final long LOCK_TIMEOUT = 10000;
+
+    /**
+     * File lock serialization inside this JVM (file locks are held by the whole process); each plugin class loader
+     * has its own, see {@link #lock()}.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    /**
+     * Cached digests.
+     */
+    private static class Entry
+    {
+        private final long size;
+
+        private final long lastModified;
+
+        private final String sha1;
+
+        private final String sha256;
+
+        Entry( long size, long lastModified, String sha1, String sha256 )
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha1 = sha1;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Cache directory.
+     */
+    private final File directory;
+
+    /**
+     * Maximum number of entries.
+     */
+    private final int maxEntries;
+
+    /**
+     * Entries (file path to digests) in LRU order.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Constructor (the cache is empty until it's loaded).
+     */
+    public DigestCache( File directory, final int maxEntries )
+    {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry( Map.Entry<String, DigestCache.Entry> eldest )
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Loads the cache file (if it exists).
+     */
+    public synchronized void load()
+        throws IOException
+    {
+        synchronized ( JVM_LOCK )
+        {
+            FileChannel lock = lock();
+            try
+            {
+                read( entries );
+            }
+            finally
+            {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the digests of a file ({ sha1, sha256 }) if it hasn't changed since they were stored, or null.
+     */
+    public synchronized String[] get( File file )
+    {
+        Entry entry = entries.get( file.getAbsolutePath() );
+        if ( entry != null && entry.size == file.length() && entry.lastModified == file.lastModified() )
+        {
+            return new String[] { entry.sha1, entry.sha256 };
+        }
+        return null;
+    }
+
+    /**
+     * Stores the digests of a file.
+     *
+     * @param size File size when it was read.
+     * @param lastModified Last modification time of the file when it was read.
+     */
+    public synchronized void put( File file, long size, long lastModified, String sha1, String sha256 )
+    {
+        entries.put( file.getAbsolutePath(), new Entry( size, lastModified, sha1, sha256 ) );
+    }
+
+    /**
+     * Saves the cache, merging the entries stored by other builds since it was loaded.
+     */
+    public synchronized void save()
+        throws IOException
+    {
+        synchronized ( JVM_LOCK )
+        {
+            FileChannel lock = lock();
+            try
+            {
+                // Entries of other builds (older than ours), then ours in LRU order
+                LinkedHashMap<String, Entry> merged = new LinkedHashMap<String, Entry>();
+                read( merged );
+                merged.keySet().removeAll( entries.keySet() );
+                merged.putAll( entries );
+
+                Iterator<String> eldest = merged.keySet().iterator();
+                for ( int excess = merged.size() - maxEntries; excess > 0; excess-- )
+                {
+                    eldest.next();
+                    eldest.remove();
+                }
+
+                write( merged );
+            }
+            finally
+            {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Locks the cache directory, waiting for other builds (the lock is released when the channel is closed).
+     * <p>
+     * Another instance of the plugin (loaded by another class loader, e.g. in another build of the same JVM) doesn't
+     * share {@link #JVM_LOCK}: its lock makes this one fail with an OverlappingFileLockException, so it is retried
+     * until the other instance releases it.
+     * @throws IOException Error, or the lock wasn't released in time.
+     */
+    private FileChannel lock()
+        throws IOException
+    {
+        Files.createDirectories( directory.toPath() );
+        FileChannel channel =
+            FileChannel.open( new File( directory, LOCK_FILE ).toPath(), StandardOpenOption.CREATE,
+                              StandardOpenOption.WRITE );
+        try
+        {
+            long deadline = System.currentTimeMillis() + LOCK_TIMEOUT;
+            while ( true )
+            {
+                try
+                {
+                    channel.lock();
+                    return channel;
+                }
+                catch ( OverlappingFileLockException e )
+                {
+                    if ( System.currentTimeMillis() > deadline )
+                    {
+                        throw new IOException( "The cache is locked by another instance of the plugin" );
+                    }
+                    Thread.sleep( 10 );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            channel.close();
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for the cache lock", e );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the cache file into a map: 'size TAB lastModified TAB sha1 TAB sha256 TAB path' lines, least recently used
+     * first. Invalid lines are ignored.
+     */
+    private void read( Map<String, Entry> map )
+        throws IOException
+    {
+        File file = new File( directory, CACHE_FILE );
+        if ( !file.isFile() )
+        {
+            return;
+        }
+
+        try ( BufferedReader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 ) )
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                String[] fields = line.split( "\t", 5 );
+                if ( fields.length == 5 )
+                {
+                    try
+                    {
+                        map.put( fields[4], new Entry( Long.parseLong( fields[0] ), Long.parseLong( fields[1] ),
+                                                       fields[2], fields[3] ) );
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // Ignored entry
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cache file (through a temporary file, replaced atomically).
+     */
+    private void write( Map<String, Entry> map )
+        throws IOException
+    {
+        Path target = new File( directory, CACHE_FILE ).toPath();
+        Path temp = Files.createTempFile( directory.toPath(), CACHE_FILE, ".tmp" );
+
+        try
+        {
+            try ( BufferedWriter writer = Files.newBufferedWriter( temp, StandardCharsets.UTF_8 ) )
+            {
+                for ( Map.Entry<String, Entry> entry : map.entrySet() )
+                {
+                    Entry value = entry.getValue();
+                    writer.write( value.size + "\t" + value.lastModified + "\t" + value.sha1 + "\t" + value.sha256
+                        + "\t" + entry.getKey() );
+                    writer.write( '\n' );
+                }
+            }
+
+            try
+            {
+                Files.move( temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch ( AtomicMoveNotSupportedException e )
+            {
+                Files.move( temp, target, StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists( temp );
+        }
+    }
+}
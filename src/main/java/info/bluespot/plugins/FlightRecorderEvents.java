@@ -0,0 +1,40 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+/**
+ * Java Flight Recorder events of the plugin, used by {@link BuildMetrics}.
+ * <p>
+ * The implementation ('JfrEvents', in 'src/main/jfr') uses the 'jdk.jfr' API, so it is only compiled on JDK 11+ (the
+ * 'jfr' profile) and only loaded when JFR is available: the plugin still builds and runs on JDK 8 without it.
+ */
+public interface FlightRecorderEvents
+{
+    /**
+     * Whether Flight Recorder has been started in this JVM (otherwise, the events are not even created).
+     */
+    boolean isRecording();
+
+    /**
+     * Starts a phase event.
+     */
+    Object beginPhase( String phase );
+
+    /**
+     * Ends and commits a phase event.
+     *
+     * @param time Time spent in the phase (nanoseconds).
+     */
+    void commitPhase( Object phase, long time );
+
+    /**
+     * Starts the summary event of an execution.
+     */
+    Object beginSummary();
+
+    /**
+     * Ends and commits the summary event of an execution.
+     */
+    void commitSummary( Object summary, long projects, long projectsSkipped, long artifacts, long bytesWritten );
+}
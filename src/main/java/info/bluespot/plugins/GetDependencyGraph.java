@@ -0,0 +1,166 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Save the resolved dependency graph of the whole reactor in a JSON or TGF file.
+ * <p>
+ * The reactor is walked once: every module and every external artifact is a node (once, whatever the number of
+ * modules that use it) and each resolved dependency is an edge from the artifact that brings it (the previous element
+ * of its dependency trail).
+ */
+@Mojo( name = "graph", aggregator = true, requiresProject = true, threadSafe = true,
+       requiresDependencyResolution = ResolutionScope.TEST )
+public class GetDependencyGraph
+    extends AbstractMojo
+{
+    /**
+     * Output format: JSON.
+     */
+    private static final String OUTPUT_JSON = "json";
+
+    /**
+     * Output format: Trivial Graph Format.
+     */
+    private static final String OUTPUT_TGF = "tgf";
+
+    /**
+     * Reactor projects.
+     */
+    @Parameter( defaultValue = "${reactorProjects}", required = true, readonly = true )
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * Output filename.
+     */
+    @Parameter( defaultValue = "dependency-graph.json", property = "outputFile", required = false, readonly = true )
+    private String outputFile;
+
+    /**
+     * Output format: "json" or "tgf". Default value calculated from the <code>outputFile</code> extension.
+     */
+    @Parameter( property = "outputFormat", required = false, readonly = true )
+    private String outputFormat;
+
+    /**
+     * Dependency scopes in the graph (comma separated; all of them if not set).
+     */
+    @Parameter( property = "scopes", required = false, readonly = true )
+    private List<String> scopes;
+
+    /**
+     * Mojo's main method.
+     */
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        String format = getFormat();
+        Set<String> scopeSet = ( scopes != null && !scopes.isEmpty() ) ? new HashSet<String>( scopes ) : null;
+
+        DependencyGraph graph = new DependencyGraph();
+
+        // The modules first, so a dependency on a module is the module node
+        for ( MavenProject project : reactorProjects )
+        {
+            graph.addModule( project.getArtifact() );
+        }
+
+        for ( MavenProject project : reactorProjects )
+        {
+            int module = graph.getNode( project.getArtifact().getId() );
+            for ( Artifact artifact : project.getArtifacts() )
+            {
+                if ( scopeSet != null && !scopeSet.contains( artifact.getScope() ) )
+                {
+                    continue;
+                }
+                int node = graph.addNode( artifact );
+                graph.addEdge( getParent( graph, artifact, module ), node );
+            }
+        }
+
+        try ( OutputSink out = Common.openOutput( outputFile ) )
+        {
+            if ( OUTPUT_TGF.equals( format ) )
+            {
+                graph.writeTgf( out );
+            }
+            else
+            {
+                graph.writeJson( out );
+            }
+
+            if ( !out.commit() )
+            {
+                getLog().info( "Output file '" + outputFile + "' is up to date (unchanged)." );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Error while writting the file: '" + outputFile + "'", e );
+        }
+
+        getLog().info( "Dependency graph: " + reactorProjects.size() + " modules, " + graph.getNodeCount()
+            + " nodes, " + graph.getEdgeCount() + " edges." );
+    }
+
+    /**
+     * Node that brings an artifact: the previous element of its dependency trail (the module if the trail is not
+     * known or its parent is not in the graph).
+     */
+    private static int getParent( DependencyGraph graph, Artifact artifact, int module )
+    {
+        List<String> trail = artifact.getDependencyTrail();
+        if ( trail != null && trail.size() >= 2 )
+        {
+            int parent = graph.getNode( trail.get( trail.size() - 2 ) );
+            if ( parent >= 0 )
+            {
+                return parent;
+            }
+        }
+        return module;
+    }
+
+    /**
+     * Output format: the 'outputFormat' property or the 'outputFile' extension (JSON by default).
+     * @throws MojoFailureException Unknown format.
+     */
+    private String getFormat()
+        throws MojoFailureException
+    {
+        String format = outputFormat;
+        if ( format == null && outputFile != null )
+        {
+            String file = CompressionSupport.removeExtension( outputFile ).toLowerCase( Locale.ROOT );
+            format = file.endsWith( "." + OUTPUT_TGF ) ? OUTPUT_TGF : OUTPUT_JSON;
+        }
+        if ( format == null )
+        {
+            return OUTPUT_JSON;
+        }
+
+        format = format.toLowerCase( Locale.ROOT );
+        if ( !OUTPUT_JSON.equals( format ) && !OUTPUT_TGF.equals( format ) )
+        {
+            throw new MojoFailureException( "Unknown output format: '" + format + "' (json or tgf)" );
+        }
+        return format;
+    }
+}
@@ -3,23 +3,19 @@
  */
 package info.bluespot.plugins;
 
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.io.File;
 import java.util.List;
 
-import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 /**
  * This goal gathers all uploaded artifacts after a build and store them in a file (CSV, JSON or XML) for scripting use.
  */
@@ -52,336 +48,182 @@ public class GetDeploymentArtifacts
     private String outputFile;
 
     /**
-     * Output format: "csv", "sh", "json" or "xml". Default value calculated from the <code>outputFile</code> extension.
+     * Output format: "csv", "sh", "bash", "json", "ndjson", "yml", "xml", "smile", "cbor", "idx" (binary index) or
+     * "template". Default value calculated from the <code>outputFile</code> extension.
      */
     @Parameter( property = "outputFormat", required = false, readonly = true )
     private String outputFormat;
 
     /**
-     * CSV separator character.
+     * Several output files (comma separated on the command line), written from a single reactor scan. Each format is
+     * calculated from the file extension. Overrides <code>outputFile</code> and <code>outputFormat</code>.
      */
-    @Parameter( defaultValue = ",", property = "csvSeparator", required = false, readonly = true )
-    private String csvSeparator;
+    @Parameter( property = "outputFiles", required = false, readonly = true )
+    private List<String> outputFiles;
 
     /**
-     * Artifact list.
+     * Output template for the "template" format (used for the files without a known extension, like '.txt'): a line
+     * per artifact with fields like '${groupId}', '${artifactId}', '${version}', '${classifier}', '${type}', '${url}',
+     * '${sha1}', '${sha256}', '${size}' or '${key}'. For example: '${key} ${url}'.
      */
-    private ArrayList<MavenUploadedArtifact> artifacts = null;
+    @Parameter( property = "template", required = false, readonly = true )
+    private String template;
 
     /**
-     * Mojo main method.
+     * Writes a binary index next to the (first) output file ('artifacts.csv' -&gt; 'artifacts.csv.idx'): the artifacts
+     * sorted by 'groupId:artifactId:classifier:type', for the <code>lookup</code> goal.
      */
-    public void execute()
-        throws MojoExecutionException, MojoFailureException
-    {
-        // Check for Reactor projects
-        if ( reactorProjects.isEmpty() )
-        {
-            System.out.println( "There isn't any project in the Reactor." );
-            return;
-        }
-
-        // Run just in the last Reactor project (at the end of the Maven execution/artifact list).
-        if ( reactorProjects.get( reactorProjects.size() - 1 ).equals( artifact ) )
-        {
-            // Gather all project information
-            processAllProjects();
-
-            // File format
-            String format = outputFormat;
-
-            if ( format == null )
-            {
-                format = Common.getOutputFormat( this.outputFile );
-            }
-
-            // Check for a empty artifact list
-            if ( this.artifacts.isEmpty() )
-            {
-                System.out.println( "There aren't any uploaded artifacts." );
-                return;
-            }
-
-            // Output content
-            ArrayList<String> output = null;
-
-            if ( Common.OUTPUT_SH_EXPORT.equalsIgnoreCase( format ) )
-            {
-                output = toShExport();
-            }
-            else if ( Common.OUTPUT_JSON.equalsIgnoreCase( format ) )
-            {
-                try
-                {
-                    output = toJSON();
-                }
-                catch ( JsonProcessingException e )
-                {
-                    throw new MojoExecutionException( e.getMessage() );
-                }
-            }
-            else if ( Common.OUTPUT_YAML.equalsIgnoreCase( format ) )
-            {
-                output = toYAML();
-            }
-            else if ( Common.OUTPUT_CSV.equalsIgnoreCase( format ) )
-            {
-                output = toCSV();
-            }
-            else if ( Common.OUTPUT_XML.equalsIgnoreCase( format ) )
-            {
-                output = toXML();
-            }
-            else
-            {
-                throw new MojoFailureException( "Invalid output format: '" + format + "'" );
-            }
-
-            // Write the output
-            System.out.println( "Writting artifact information to file '" + outputFile + "' (format '"
-                + format + "')." );
-            Common.writeToFile( output, this.outputFile );
-        }
-    }
+    @Parameter( defaultValue = "false", property = "index", required = false, readonly = true )
+    private boolean index;
 
     /**
-     * Process all projects looking for artifacts.
+     * Artifacts to include (comma separated on the command line), as 'groupId[:artifactId[:classifier[:type]]]'
+     * patterns where '*' matches any text inside a field. By default, all artifacts are included.
      */
-    private void processAllProjects()
-    {
-        this.artifacts = new ArrayList<MavenUploadedArtifact>();
-
-        for ( MavenProject project : reactorProjects )
-        {
-            // Adds the current POM artifact
-            addUploadedArtifact( project, project.getArtifact() );
-
-            // And then, the attached artifacts
-            List<Artifact> attachedArtifacts = project.getAttachedArtifacts();
-
-            if ( !attachedArtifacts.isEmpty() )
-            {
-                for ( Artifact artifact : attachedArtifacts )
-                {
-                    addUploadedArtifact( project, artifact );
-                }
-            }
-        }
-    }
+    @Parameter( property = "includes", required = false, readonly = true )
+    private List<String> includes;
 
     /**
-     * Adds an artifact to the upload list
+     * Artifacts to exclude (comma separated on the command line), with the same patterns as <code>includes</code>. For
+     * example: '*:*:sources,*:*:javadoc'.
      */
-    private void addUploadedArtifact( MavenProject project, Artifact artifact )
-    {
-        // Without distribution management, we cannot add the artifact
-        if ( this.artifact.getDistributionManagementArtifactRepository() == null )
-        {
-            return;
-        }
-
-        String artifactUrl =
-            this.artifact.getDistributionManagementArtifactRepository().getUrl() + getLocation( artifact, true );
-        artifactUrl = artifactUrl.replaceAll("(?<=[^:\\s])(\\/+\\/)", "/");
-
-        MavenUploadedArtifact uploadedArtifact =
-            new MavenUploadedArtifact( artifact.getGroupId(), artifact.getArtifactId(), project.getVersion(),
-                                       artifact.getClassifier(), artifact.getType(), artifactUrl );
-        artifacts.add( uploadedArtifact );
-    }
+    @Parameter( property = "excludes", required = false, readonly = true )
+    private List<String> excludes;
 
     /**
-     * 'sh-export' output.
+     * CSV separator character.
      */
-    private ArrayList<String> toShExport()
-    {
-        ArrayList<String> output = new ArrayList<String>();
-
-        int idx = 0;
-        for ( MavenUploadedArtifact artifact : this.artifacts )
-        {
-            idx++;
-            output.add( "ARTIFACT_" + idx + "_ID='" + artifact.getArtifactId() + "'" );
-            output.add( "ARTIFACT_" + idx + "_VERSION='"+ artifact.getVersion() + "'" );
-            output.add( "ARTIFACT_" + idx + "_CLASSIFIER='" + artifact.getClassifier() + "'" );
-            output.add( "ARTIFACT_" + idx + "_TYPE='" + artifact.getType() + "'" );
-            output.add( "ARTIFACT_" + idx + "_URL='" + artifact.getUrl() + "'" );
-        }
-        output.add( "ARTIFACT_COUNT=" + idx );
-
-        return output;
-    }
+    @Parameter( defaultValue = ",", property = "csvSeparator", required = false, readonly = true )
+    private String csvSeparator;
 
     /**
-     * XML output.
+     * Merges the artifacts with the previous manifest (the first existing output file): only the entries of the modules
+     * built in this session are replaced. Useful for partial builds (<code>-pl</code>, <code>-am</code>,
+     * <code>-rf</code>). The shell formats ('sh', 'bash') cannot be merged.
      */
-    private ArrayList<String> toXML()
-    {
-        ArrayList<String> output = new ArrayList<String>();
-
-        output.add( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" );
-        output.add( "<artifacts>" );
-
-        for ( MavenUploadedArtifact artifact : this.artifacts )
-        {
-            output.add( "  <artifact>" );
-            output.add( "    <artifactId>" + artifact.getArtifactId() + "</artifactId>" );
-            output.add( "    <groupId>" + artifact.getGroupId() + "</groupId>" );
-            output.add( "    <version>" + artifact.getVersion() + "</version>" );
-            output.add( "    <classifier>" + artifact.getClassifier() + "</classifier>" );
-            output.add( "    <type>" + artifact.getType() + "</type>" );
-            output.add( "    <url>" + artifact.getUrl() + "</url>" );
-            output.add( "  </artifact>" );
-
-        }
-        output.add( "</artifacts>" );
-
-        return output;
-    }
+    @Parameter( defaultValue = "false", property = "incremental", required = false, readonly = true )
+    private boolean incremental;
 
     /**
-     * JSON output.
-     * 
-     * @throws JsonProcessingException Error processing the JSON output.
+     * Scans the reactor projects in parallel. The artifact order is the same as in the serial scan.
      */
-    private ArrayList<String> toJSON()
-        throws JsonProcessingException
-    {
-        ArrayList<String> output = new ArrayList<String>();
-
-        ObjectMapper jsonMapper = new ObjectMapper();
-        output.add( jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString( artifacts ) );
-
-        return output;
-    }
+    @Parameter( defaultValue = "false", property = "parallelScan", required = false, readonly = true )
+    private boolean parallelScan;
 
     /**
-     * YAML output.
+     * Threads for the parallel scan. With '0', the common ForkJoin pool is used.
      */
-    private ArrayList<String> toYAML()
-    {
-        ArrayList<String> output = new ArrayList<String>();
-
-        output.add( "artifacts:" );
-
-        for ( MavenUploadedArtifact artifact : this.artifacts )
-        {
-            output.add( " - artifactId: '" + artifact.getArtifactId() + "'" );
-            output.add( "   groupId: '" + artifact.getGroupId() + "'" );
-            output.add( "   version: '" + artifact.getVersion() + "'" );
-            output.add( "   classifier: '" + artifact.getClassifier() + "'" );
-            output.add( "   type: '" + artifact.getType() + "'" );
-            output.add( "   url: '" + artifact.getUrl() + "'" );
-
-        }
-
-        return output;
-    }
+    @Parameter( defaultValue = "0", property = "scanThreads", required = false, readonly = true )
+    private int scanThreads;
 
     /**
-     * CSV output
+     * Adds the size and the SHA-1/SHA-256 digests of each artifact file to the output. Existing '.sha1'/'.sha256'
+     * files next to the artifacts are reused, unless they are older than the artifact; the artifact is still read if
+     * one of them is missing. Artifacts without a file have empty checksum fields.
      */
-    private ArrayList<String> toCSV()
-    {
-        ArrayList<String> output = new ArrayList<String>();
+    @Parameter( defaultValue = "false", property = "checksums", required = false, readonly = true )
+    private boolean checksums;
 
-        StringBuffer sb = new StringBuffer( "#groupId" );
-        sb.append( csvSeparator );
-        sb.append( "artifactId" );
-        sb.append( csvSeparator );
-        sb.append( "version" );
-        sb.append( csvSeparator );
-        sb.append( "type" );
-        sb.append( csvSeparator );
-        sb.append( "classifier" );
-        sb.append( csvSeparator );
-        sb.append( "url" );
+    /**
+     * Threads for the checksum calculation. With '0', the number of available processors.
+     */
+    @Parameter( defaultValue = "0", property = "checksumThreads", required = false, readonly = true )
+    private int checksumThreads;
 
-        output.add( sb.toString() );
+    /**
+     * Keeps the digests of the artifact files between builds (keyed by path, size and modification time), so unchanged
+     * files are not read again.
+     */
+    @Parameter( defaultValue = "true", property = "digestCache", required = false, readonly = true )
+    private boolean digestCache;
 
-        for ( MavenUploadedArtifact artifact : this.artifacts )
-        {
-            output.add( artifactToCSV( artifact ) );
-        }
+    /**
+     * Digest cache directory. It may be shared by several builds.
+     */
+    @Parameter( defaultValue = "${session.executionRootDirectory}/target/build-info", property = "digestCacheDirectory",
+                required = false, readonly = true )
+    private File digestCacheDirectory;
 
-        return output;
-    }
+    /**
+     * Maximum entries of the digest cache (the least recently used ones are evicted).
+     */
+    @Parameter( defaultValue = "10000", property = "digestCacheSize", required = false, readonly = true )
+    private int digestCacheSize;
 
     /**
-     * Returns the CSV line for an artifact.
+     * Session collector (active when the plugin is loaded as a build extension).
      */
-    private String artifactToCSV( MavenUploadedArtifact artifact )
-    {
-        StringBuffer sb = new StringBuffer( artifact.getGroupId() );
-        sb.append( csvSeparator );
-        sb.append( artifact.getArtifactId() );
-        sb.append( csvSeparator );
-        sb.append( artifact.getVersion() );
-        sb.append( csvSeparator );
-        sb.append( artifact.getType() );
-        sb.append( csvSeparator );
-        sb.append( artifact.getClassifier() );
-        sb.append( csvSeparator );
-        sb.append( artifact.getUrl() );
+    @Component
+    private ReactorArtifactCollector collector;
 
-        return ( sb.toString() );
-    }
+    /**
+     * Artifact handlers (artifact type extensions).
+     */
+    @Component
+    private ArtifactHandlerManager artifactHandlerManager;
 
     /**
-     * Gets the artifact URL. Code "kindly" taken from the "Maven2RepositoryLayoutFactory.java" (aether-core).
+     * Mojo main method.
      */
-    public URI getLocation( Artifact artifact, boolean upload )
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
     {
-        StringBuilder path = new StringBuilder( 128 );
-
-        path.append( '/' );
-
-        path.append( artifact.getGroupId().replace( '.', '/' ) ).append( '/' );
-
-        path.append( artifact.getArtifactId() ).append( '/' );
-
-        path.append( artifact.getBaseVersion() ).append( '/' );
-
-        // 'artifact.getBaseVersion()' - returns '0.1.2-SNAPSHOT'
-        // 'artifact.getVersion()' - replaces the 'SNAPSHOT' for a timestamp
-        path.append( artifact.getArtifactId() ).append( '-' ).append( artifact.getBaseVersion() );
+        // As a build extension, every module registers itself and the manifest is written at the session end (it's
+        // only created for the last registered module).
+        if ( collector != null && collector.isActive() )
+        {
+            collector.register( artifact, this::createManifest );
+            return;
+        }
 
-        if ( ( artifact.getClassifier() != null ) && ( artifact.getClassifier().length() > 0 ) )
+        // Otherwise, run just in the last Reactor project (at the end of the Maven execution/artifact list). The other
+        // modules return here, before any manifest, formatter or Jackson class is loaded.
+        int size = reactorProjects.size();
+        if ( size > 0 && reactorProjects.get( size - 1 ) != artifact
+            && !reactorProjects.get( size - 1 ).equals( artifact ) )
         {
-            path.append( '-' ).append( artifact.getClassifier() );
+            return;
         }
 
-        if ( ( artifact.getType() != null ) )
+        // Check for Reactor projects
+        if ( size == 0 )
         {
-            // See: maven-core/src/site/apt/artifact-handlers.apt
-            if ( artifact.getType().equals( "java-source" ) || artifact.getType().equals( "maven-plugin" )
-                || artifact.getType().equals( "ejb" ) || artifact.getType().equals( "javadoc" )
-                || artifact.getType().equals( "ejb-client" ) || artifact.getType().equals( "test-jar" ) )
-            {
-                path.append( ".jar" );
-            }
-            else
-            {
-                path.append( '.' ).append( artifact.getType() );
-            }
+            getLog().info( "There isn't any project in the Reactor." );
+            return;
         }
 
-        return toUri( path.toString() );
+        ArtifactManifest manifest = createManifest();
+
+        // Gather all project information
+        manifest.processAllProjects( reactorProjects );
+
+        // Write the output
+        manifest.write();
+        manifest.logSummary();
     }
 
     /**
-     * 'toUri' (aether-core).
+     * Creates the manifest with this execution's configuration.
      */
-    private URI toUri( String path )
+    private ArtifactManifest createManifest()
+        throws MojoFailureException
     {
-        try
+        ArtifactManifest manifest = new ArtifactManifest( artifact, outputFile, outputFormat, csvSeparator );
+        manifest.setLog( getLog() );
+        manifest.setOutputFiles( outputFiles );
+        manifest.setIndex( index );
+        manifest.setFilter( SharedCaches.getFilter( includes, excludes ) );
+        manifest.setTemplate( SharedCaches.getTemplate( template ) );
+        manifest.setArtifactHandlerManager( artifactHandlerManager );
+        manifest.setIncremental( incremental );
+        manifest.setParallelScan( parallelScan );
+        manifest.setScanThreads( scanThreads );
+        manifest.setChecksums( checksums );
+        manifest.setChecksumThreads( checksumThreads );
+        if ( digestCache )
         {
-            return new URI( null, null, path, null );
-        }
-        catch ( URISyntaxException e )
-        {
-            throw new IllegalStateException( e );
+            manifest.setDigestCache( digestCacheDirectory, digestCacheSize );
         }
+        return manifest;
     }
-
 }
@@ -3,10 +3,19 @@
  */
 package info.bluespot.plugins;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.maven.model.DeploymentRepository;
 import org.apache.maven.model.DistributionManagement;
-import org.apache.maven.model.Model;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -14,9 +23,14 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
 /**
  * Save the 'distributionManagement' (snapshots and releases repositories) of the current project in a
  * CSV/JSON/XML/Shell file.
+ * <p>
+ * In aggregate mode, the whole reactor is walked once (on the execution root) and the identical repository
+ * definitions are written once, with the modules that deploy to them.
  */
 @Mojo( name = "distribution", requiresProject = true, threadSafe = true, inheritByDefault = false )
 public class GetDistributionManagement
@@ -28,6 +42,12 @@ public class GetDistributionManagement
     @Parameter( defaultValue = "${project}", readonly = true, required = true )
     private MavenProject project;
 
+    /**
+     * Reactor projects.
+     */
+    @Parameter( defaultValue = "${reactorProjects}", required = true, readonly = true )
+    private List<MavenProject> reactorProjects;
+
     /**
      * Output filename.
      */
@@ -46,164 +66,501 @@ public class GetDistributionManagement
     @Parameter( defaultValue = ",", property = "csvSeparator", required = false, readonly = true )
     private String csvSeparator;
 
+    /**
+     * Aggregate mode: a single output for the whole reactor (written on the execution root), with each distinct
+     * repository definition once and the modules ('groupId:artifactId') that deploy to it.
+     */
+    @Parameter( defaultValue = "false", property = "aggregate", required = false, readonly = true )
+    private boolean aggregate;
+
+    /**
+     * Releases and snapshots repositories of a 'distributionManagement' (a missing repository has null values).
+     * Identical definitions are equal.
+     */
+    private static class Distribution
+    {
+        /**
+         * Repository values: releases id, name, url and layout, then the same for snapshots.
+         */
+        private final String[] values = new String[8];
+
+        /**
+         * Modules that deploy to these repositories (aggregate mode).
+         */
+        private final List<String> modules = new ArrayList<String>();
+
+        Distribution( DistributionManagement dm )
+        {
+            setRepository( 0, dm.getRepository() );
+            setRepository( 4, dm.getSnapshotRepository() );
+        }
+
+        private void setRepository( int offset, DeploymentRepository repository )
+        {
+            if ( repository != null )
+            {
+                values[offset] = repository.getId();
+                values[offset + 1] = repository.getName();
+                values[offset + 2] = repository.getUrl();
+                values[offset + 3] = repository.getLayout();
+            }
+        }
+
+        public boolean equals( Object other )
+        {
+            return ( other instanceof Distribution ) && Arrays.equals( values, ( (Distribution) other ).values );
+        }
+
+        public int hashCode()
+        {
+            return Arrays.hashCode( values );
+        }
+    }
+
+    /**
+     * Field names (sh, JSON, CSV).
+     */
+    private static final String[] KEYS = { "releases_id", "releases_name", "releases_url", "releases_layout",
+        "snapshot_id", "snapshot_name", "snapshot_url", "snapshot_layout" };
+
+    /**
+     * Field names (XML).
+     */
+    private static final String[] XML_KEYS = { "releasesId", "releasesName", "releasesUrl", "releasesLayout",
+        "snapshotId", "snapshotName", "snapshotUrl", "snapshotLayout" };
+
     /**
      * Mojo's main method.
      */
     public void execute()
         throws MojoExecutionException, MojoFailureException
     {
+        if ( aggregate )
+        {
+            executeAggregate();
+            return;
+        }
+
         // Get the model
-        Model model = project.getModel();
-        DistributionManagement dm = model.getDistributionManagement();
+        DistributionManagement dm = project.getModel().getDistributionManagement();
 
         if ( dm != null )
         {
-            // Output content
-            ArrayList<String> output = null;
+            String format = getFormat();
 
-            // File format
-            String format = this.outputFormat;
-            if ( format == null )
+            // Write the output
+            getLog().info( "Writting distribution management information to file '" + outputFile + "' (format '"
+                + format + "')." );
+            try ( OutputSink out = Common.openOutput( this.outputFile ) )
             {
-                format = Common.getOutputFormat( this.outputFile );
+                Distribution distribution = new Distribution( dm );
+
+                if ( Common.OUTPUT_SH_EXPORT.equalsIgnoreCase( format ) )
+                {
+                    toShExport( distribution, out );
+                }
+                else if ( Common.OUTPUT_JSON.equalsIgnoreCase( format ) )
+                {
+                    toJSON( distribution, out, true );
+                }
+                else if ( Common.OUTPUT_NDJSON.equalsIgnoreCase( format ) )
+                {
+                    toJSON( distribution, out, false );
+                }
+                else if ( Common.OUTPUT_YAML.equalsIgnoreCase( format ) )
+                {
+                    toYAML( distribution, out );
+                }
+                else if ( Common.OUTPUT_CSV.equalsIgnoreCase( format ) )
+                {
+                    toCSV( distribution, out );
+                }
+                else
+                {
+                    toXML( distribution, out );
+                }
+
+                commit( out );
             }
+            catch ( IOException e )
+            {
+                throw new MojoFailureException( "Error while writting the file: '" + outputFile + "'", e );
+            }
+        }
+    }
+
+    /**
+     * Aggregate mode: walks the reactor once (on the execution root) and writes the distinct repository definitions.
+     */
+    private void executeAggregate()
+        throws MojoFailureException
+    {
+        // Only once: on the execution root (or the first project, if the root is not in the reactor)
+        MavenProject root = reactorProjects.get( 0 );
+        for ( MavenProject reactorProject : reactorProjects )
+        {
+            if ( reactorProject.isExecutionRoot() )
+            {
+                root = reactorProject;
+                break;
+            }
+        }
+        if ( !root.equals( project ) )
+        {
+            return;
+        }
+
+        String format = getFormat();
+
+        // Identical definitions (usually inherited from a parent) are kept once
+        Map<Distribution, Distribution> distributions = new LinkedHashMap<Distribution, Distribution>();
+        int withoutDistribution = 0;
+        for ( MavenProject reactorProject : reactorProjects )
+        {
+            DistributionManagement dm = reactorProject.getModel().getDistributionManagement();
+            if ( dm == null )
+            {
+                withoutDistribution++;
+                continue;
+            }
+
+            Distribution distribution = new Distribution( dm );
+            Distribution existing = distributions.get( distribution );
+            if ( existing == null )
+            {
+                distributions.put( distribution, distribution );
+                existing = distribution;
+            }
+            existing.modules.add( reactorProject.getGroupId() + ":" + reactorProject.getArtifactId() );
+        }
+
+        getLog().info( "Writting the distribution management of " + reactorProjects.size() + " modules ("
+            + distributions.size() + " distinct, " + withoutDistribution + " without it) to file '" + outputFile
+            + "' (format '" + format + "')." );
+        try ( OutputSink out = Common.openOutput( this.outputFile ) )
+        {
+            List<Distribution> list = new ArrayList<Distribution>( distributions.values() );
 
             if ( Common.OUTPUT_SH_EXPORT.equalsIgnoreCase( format ) )
             {
-                output = toShExport( dm );
+                toShExport( list, out );
             }
             else if ( Common.OUTPUT_JSON.equalsIgnoreCase( format ) )
             {
-                output = toJSON( dm );
+                toJSON( list, out, true );
             }
-            else if ( Common.OUTPUT_YAML.equalsIgnoreCase( format ) )
+            else if ( Common.OUTPUT_NDJSON.equalsIgnoreCase( format ) )
             {
-                output = toYAML( dm );
+                toJSON( list, out, false );
             }
-            else if ( Common.OUTPUT_CSV.equalsIgnoreCase( format ) )
+            else if ( Common.OUTPUT_YAML.equalsIgnoreCase( format ) )
             {
-                output = toCSV( dm );
+                toYAML( list, out );
             }
-            else if ( Common.OUTPUT_XML.equalsIgnoreCase( format ) )
+            else if ( Common.OUTPUT_CSV.equalsIgnoreCase( format ) )
             {
-                output = toXML( dm );
+                toCSV( list, out );
             }
             else
             {
-                throw new MojoFailureException( "Invalid output format: '" + format + "'" );
+                toXML( list, out );
             }
 
-            // Write the output
-            System.out.println( "Writting distribution management information to file '" + outputFile + "' (format '"
-                + format + "')." );
-            Common.writeToFile( output, this.outputFile );
+            commit( out );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Error while writting the file: '" + outputFile + "'", e );
         }
     }
 
     /**
-     * 'sh-export' output.
+     * Output format (checked).
+     * @throws MojoFailureException Invalid output format.
      */
-    private ArrayList<String> toShExport( DistributionManagement dm )
+    private String getFormat()
+        throws MojoFailureException
     {
-        ArrayList<String> output = new ArrayList<String>();
+        String format = this.outputFormat;
+        if ( format == null )
+        {
+            format = Common.getOutputFormat( this.outputFile );
+        }
 
-        output.add( "releases_id='" + dm.getRepository().getId() + "'" );
-        output.add( "releases_name='" + dm.getRepository().getName() + "'" );
-        output.add( "releases_url='" + dm.getRepository().getUrl() + "'" );
-        output.add( "releases_layout='" + dm.getRepository().getLayout() + "'" );
+        if ( !Common.OUTPUT_SH_EXPORT.equalsIgnoreCase( format ) && !Common.OUTPUT_JSON.equalsIgnoreCase( format )
+            && !Common.OUTPUT_NDJSON.equalsIgnoreCase( format ) && !Common.OUTPUT_YAML.equalsIgnoreCase( format )
+            && !Common.OUTPUT_CSV.equalsIgnoreCase( format ) && !Common.OUTPUT_XML.equalsIgnoreCase( format ) )
+        {
+            throw new MojoFailureException( "Invalid output format: '" + format + "'" );
+        }
+        return format;
+    }
+
+    /**
+     * Completes the output.
+     */
+    private void commit( OutputSink out )
+        throws IOException
+    {
+        if ( !out.commit() )
+        {
+            getLog().info( "The file '" + outputFile + "' is up to date (unchanged)." );
+        }
+    }
 
-        output.add( "snapshot_id='" + dm.getSnapshotRepository().getId() + "'" );
-        output.add( "snapshot_name='" + dm.getSnapshotRepository().getName() + "'" );
-        output.add( "snapshot_url='" + dm.getSnapshotRepository().getUrl() + "'" );
-        output.add( "snapshot_layout='" + dm.getSnapshotRepository().getLayout() + "'" );
+    /**
+     * 'sh-export' output.
+     */
+    private void toShExport( Distribution distribution, OutputSink out )
+        throws IOException
+    {
+        for ( int i = 0; i < KEYS.length; i++ )
+        {
+            out.append( KEYS[i] ).append( "='" ).append( distribution.values[i] ).append( "'" ).newLine();
+        }
+    }
 
-        return output;
+    /**
+     * 'sh-export' output (aggregate mode).
+     */
+    private void toShExport( List<Distribution> distributions, OutputSink out )
+        throws IOException
+    {
+        int idx = 0;
+        for ( Distribution distribution : distributions )
+        {
+            idx++;
+            for ( int i = 0; i < KEYS.length; i++ )
+            {
+                out.append( "DISTRIBUTION_" ).append( idx ).append( "_" ).append( KEYS[i].toUpperCase( Locale.ROOT ) )
+                    .append( "='" ).append( distribution.values[i] ).append( "'" ).newLine();
+            }
+            out.append( "DISTRIBUTION_" ).append( idx ).append( "_MODULES='" )
+                .append( String.join( " ", distribution.modules ) ).append( "'" ).newLine();
+        }
+        out.append( "DISTRIBUTION_COUNT=" ).append( idx ).newLine();
     }
 
     /**
-     * JSON output.
+     * JSON output (pretty-printed or in a single line).
      */
-    private ArrayList<String> toJSON( DistributionManagement dm )
+    private void toJSON( Distribution distribution, OutputSink out, boolean pretty )
+        throws IOException
     {
-        ArrayList<String> output = new ArrayList<String>();
+        JsonGenerator generator = JsonSupport.createGenerator( out, pretty );
+        writeJSON( distribution, generator, false );
+        generator.close();
 
-        output.add( "{" );
-        output.add( "\"releases_id\":\"" + dm.getRepository().getId() + "\"," );
-        output.add( "\"releases_name\":\"" + dm.getRepository().getName() + "\"," );
-        output.add( "\"releases_url\":\"" + dm.getRepository().getUrl() + "\"," );
-        output.add( "\"releases_layout\":\"" + dm.getRepository().getLayout() + "\"," );
+        out.newLine();
+    }
 
-        output.add( "\"snapshot_id\":\"" + dm.getSnapshotRepository().getId() + "\"," );
-        output.add( "\"snapshot_name\":\"" + dm.getSnapshotRepository().getName() + "\"," );
-        output.add( "\"snapshot_url\":\"" + dm.getSnapshotRepository().getUrl() + "\"," );
-        output.add( "\"snapshot_layout\":\"" + dm.getSnapshotRepository().getLayout() + "\"" );
-        output.add( "}" );
+    /**
+     * JSON output (aggregate mode): an array or, in a single line, a record per line.
+     */
+    private void toJSON( List<Distribution> distributions, OutputSink out, boolean pretty )
+        throws IOException
+    {
+        JsonGenerator generator = JsonSupport.createGenerator( out, pretty );
+        if ( pretty )
+        {
+            generator.writeStartArray();
+        }
+        for ( Distribution distribution : distributions )
+        {
+            writeJSON( distribution, generator, true );
+            if ( !pretty )
+            {
+                generator.writeRaw( '\n' );
+            }
+        }
+        if ( pretty )
+        {
+            generator.writeEndArray();
+            generator.writeRaw( OutputSink.LINE_SEPARATOR );
+        }
+        generator.close();
+    }
 
-        return output;
+    /**
+     * Writes a JSON object.
+     */
+    private static void writeJSON( Distribution distribution, JsonGenerator generator, boolean modules )
+        throws IOException
+    {
+        generator.writeStartObject();
+        for ( int i = 0; i < KEYS.length; i++ )
+        {
+            generator.writeStringField( KEYS[i], distribution.values[i] );
+        }
+        if ( modules )
+        {
+            generator.writeArrayFieldStart( "modules" );
+            for ( String module : distribution.modules )
+            {
+                generator.writeString( module );
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
     }
 
     /**
      * YAML output.
      */
-    private ArrayList<String> toYAML( DistributionManagement dm )
+    private void toYAML( Distribution distribution, OutputSink out )
+        throws IOException
     {
-        ArrayList<String> output = new ArrayList<String>();
+        writeYAML( distribution, out, "" );
+    }
 
-        output.add( "releases:" );
-        output.add( "  id: '" + dm.getRepository().getId() + "'" );
-        output.add( "  name: '" + dm.getRepository().getName() + "'" );
-        output.add( "  url: '" + dm.getRepository().getUrl() + "'" );
-        output.add( "  layout: '" + dm.getRepository().getLayout() + "'" );
+    /**
+     * YAML output (aggregate mode).
+     */
+    private void toYAML( List<Distribution> distributions, OutputSink out )
+        throws IOException
+    {
+        out.append( "distributions:" ).newLine();
+        for ( Distribution distribution : distributions )
+        {
+            out.append( " - modules:" ).newLine();
+            for ( String module : distribution.modules )
+            {
+                out.append( "    - '" ).append( module ).append( "'" ).newLine();
+            }
+            writeYAML( distribution, out, "   " );
+        }
+    }
 
-        output.add( "snapshots:" );
-        output.add( "  id: '" + dm.getSnapshotRepository().getId() + "'" );
-        output.add( "  name: '" + dm.getSnapshotRepository().getName() + "'" );
-        output.add( "  url: '" + dm.getSnapshotRepository().getUrl() + "'" );
-        output.add( "  layout: '" + dm.getSnapshotRepository().getLayout() + "'" );
+    /**
+     * Writes the YAML repositories with an indentation.
+     */
+    private static void writeYAML( Distribution distribution, OutputSink out, String indent )
+        throws IOException
+    {
+        String[] names = { "id", "name", "url", "layout" };
+        for ( int i = 0; i < KEYS.length; i++ )
+        {
+            if ( i % 4 == 0 )
+            {
+                out.append( indent ).append( ( i == 0 ) ? "releases:" : "snapshots:" ).newLine();
+            }
+            out.append( indent ).append( "  " ).append( names[i % 4] ).append( ": '" )
+                .append( distribution.values[i] ).append( "'" ).newLine();
+        }
+    }
+
+    /**
+     * XML output, streamed through StAX (the values are escaped).
+     */
+    private void toXML( Distribution distribution, OutputSink out )
+        throws IOException
+    {
+        try
+        {
+            XMLStreamWriter writer = XmlSupport.createWriter( out );
+            writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+            writer.writeStartElement( "distributionManagement" );
+            writeXML( distribution, writer, "  " );
+            writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+            writer.writeEndElement();
 
-        return output;
+            XmlSupport.close( writer );
+        }
+        catch ( XMLStreamException e )
+        {
+            throw XmlSupport.toIOException( e );
+        }
     }
 
     /**
-     * XML output.
+     * XML output (aggregate mode).
      */
-    private ArrayList<String> toXML( DistributionManagement dm )
+    private void toXML( List<Distribution> distributions, OutputSink out )
+        throws IOException
     {
-        ArrayList<String> output = new ArrayList<String>();
+        try
+        {
+            XMLStreamWriter writer = XmlSupport.createWriter( out );
+            writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+            writer.writeStartElement( "distributions" );
+            for ( Distribution distribution : distributions )
+            {
+                writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+                writer.writeCharacters( "  " );
+                writer.writeStartElement( "distributionManagement" );
+                writeXML( distribution, writer, "    " );
 
-        output.add( "<distributionManagement>" );
-        output.add( "  <releasesId>" + dm.getRepository().getId() + "</releasesId>" );
-        output.add( "  <releasesName>" + dm.getRepository().getName() + "</releasesName>" );
-        output.add( "  <releasesUrl>" + dm.getRepository().getUrl() + "</releasesUrl>" );
-        output.add( "  <releasesLayout>" + dm.getRepository().getLayout() + "</releasesLayout>" );
+                writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+                writer.writeCharacters( "    " );
+                writer.writeStartElement( "modules" );
+                for ( String module : distribution.modules )
+                {
+                    XmlSupport.writeElement( writer, "      ", "module", module );
+                }
+                writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+                writer.writeCharacters( "    " );
+                writer.writeEndElement();
 
-        output.add( "  <snapshotId>" + dm.getSnapshotRepository().getId() + "</snapshotId>" );
-        output.add( "  <snapshotName>" + dm.getSnapshotRepository().getName() + "</snapshotName>" );
-        output.add( "  <snapshotUrl>" + dm.getSnapshotRepository().getUrl() + "</snapshotUrl>" );
-        output.add( "  <snapshotLayout>" + dm.getSnapshotRepository().getLayout() + "</snapshotLayout>" );
-        output.add( "</distributionManagement>" );
+                writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+                writer.writeCharacters( "  " );
+                writer.writeEndElement();
+            }
+            writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+            writer.writeEndElement();
 
-        return output;
+            XmlSupport.close( writer );
+        }
+        catch ( XMLStreamException e )
+        {
+            throw XmlSupport.toIOException( e );
+        }
     }
 
     /**
-     * CSV output
+     * Writes the XML repository elements.
      */
-    private ArrayList<String> toCSV( DistributionManagement dm )
+    private static void writeXML( Distribution distribution, XMLStreamWriter writer, String indent )
+        throws XMLStreamException
     {
-        ArrayList<String> output = new ArrayList<String>();
+        for ( int i = 0; i < XML_KEYS.length; i++ )
+        {
+            XmlSupport.writeElement( writer, indent, XML_KEYS[i], distribution.values[i] );
+        }
+    }
 
-        output.add( "#key" + csvSeparator + "value" );
-        output.add( "releases_id" + csvSeparator + dm.getRepository().getId() );
-        output.add( "releases_name" + csvSeparator + dm.getRepository().getName() );
-        output.add( "releases_url" + csvSeparator + dm.getRepository().getUrl() );
-        output.add( "releases_layout" + csvSeparator + dm.getRepository().getLayout() );
+    /**
+     * CSV output
+     */
+    private void toCSV( Distribution distribution, OutputSink out )
+        throws IOException
+    {
+        out.append( "#key" ).append( csvSeparator ).append( "value" ).newLine();
+        for ( int i = 0; i < KEYS.length; i++ )
+        {
+            out.append( KEYS[i] ).append( csvSeparator ).append( distribution.values[i] ).newLine();
+        }
+    }
 
-        output.add( "snapshot_id" + csvSeparator + dm.getSnapshotRepository().getId() );
-        output.add( "snapshot_name" + csvSeparator + dm.getSnapshotRepository().getName() );
-        output.add( "snapshot_url" + csvSeparator + dm.getSnapshotRepository().getUrl() );
-        output.add( "snapshot_layout" + csvSeparator + dm.getSnapshotRepository().getLayout() );
+    /**
+     * CSV output (aggregate mode): a row per distinct definition, with the modules separated by spaces.
+     */
+    private void toCSV( List<Distribution> distributions, OutputSink out )
+        throws IOException
+    {
+        out.append( "#" );
+        for ( String key : KEYS )
+        {
+            out.append( key ).append( csvSeparator );
+        }
+        out.append( "modules" ).newLine();
 
-        return output;
+        for ( Distribution distribution : distributions )
+        {
+            for ( String value : distribution.values )
+            {
+                out.append( value ).append( csvSeparator );
+            }
+            out.append( String.join( " ", distribution.modules ) ).newLine();
+        }
     }
 }
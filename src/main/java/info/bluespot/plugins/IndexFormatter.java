@@ -0,0 +1,19 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+/**
+ * Binary index output (see {@link ManifestIndex}), written to the sink's byte stream.
+ */
+public class IndexFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        ManifestIndex.write( artifacts, out.getStream() );
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * JSON output (pretty-printed array of artifacts).
+ */
+public class JsonFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        JsonGenerator generator = JsonSupport.createGenerator( out, true );
+
+        generator.writeStartArray();
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            JsonSupport.ARTIFACT_WRITER.writeValue( generator, artifact );
+        }
+        generator.writeEndArray();
+        generator.close();
+
+        out.newLine();
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Shared Jackson objects for the JSON outputs (immutable and thread-safe once configured, so they are created once).
+ */
+public class JsonSupport
+{
+    /**
+     * Object mapper. The sink owns the output (it is not closed by the generators) and it is buffered (values are not
+     * flushed one by one).
+     */
+    public static final ObjectMapper MAPPER =
+        new ObjectMapper( new JsonFactory().disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET ) )
+            .disable( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+
+    /**
+     * Artifact writer.
+     */
+    public static final ObjectWriter ARTIFACT_WRITER = MAPPER.writerFor( MavenUploadedArtifact.class );
+
+    /**
+     * Creates a streaming generator over the sink.
+     */
+    public static JsonGenerator createGenerator( OutputSink out, boolean pretty )
+        throws IOException
+    {
+        JsonGenerator generator = MAPPER.getFactory().createGenerator( out.getWriter() );
+        if ( pretty )
+        {
+            generator.useDefaultPrettyPrinter();
+        }
+        else
+        {
+            generator.setRootValueSeparator( null );
+        }
+        return generator;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * This goal finds an artifact in the binary index written by the 'artifacts' goal (<code>-Dindex=true</code>) and
+ * prints its URL on the standard output, so scripts can get it without parsing the manifest.
+ */
+@Mojo( name = "lookup", requiresProject = false, threadSafe = true )
+public class LookupArtifact
+    extends AbstractMojo
+{
+    /**
+     * Maven project (if any).
+     */
+    @Parameter( defaultValue = "${project}", readonly = true )
+    private MavenProject project;
+
+    /**
+     * Index file.
+     */
+    @Parameter( defaultValue = "artifacts.csv.idx", property = "indexFile", required = true, readonly = true )
+    private File indexFile;
+
+    /**
+     * Artifact key: 'groupId:artifactId:classifier:type' (the classifier is empty for the main artifact, like
+     * 'com.acme:app::jar').
+     */
+    @Parameter( property = "key", required = true, readonly = true )
+    private String key;
+
+    /**
+     * Project property where the URL is also stored (optional).
+     */
+    @Parameter( property = "urlProperty", required = false, readonly = true )
+    private String urlProperty;
+
+    /**
+     * Fails the build if the artifact is not in the index.
+     */
+    @Parameter( defaultValue = "true", property = "failIfNotFound", required = false, readonly = true )
+    private boolean failIfNotFound;
+
+    /**
+     * Mojo's main method.
+     */
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        MavenUploadedArtifact artifact;
+        try ( ManifestIndex index = ManifestIndex.open( indexFile ) )
+        {
+            artifact = index.lookup( key );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Error while reading the index: '" + indexFile + "'", e );
+        }
+
+        if ( artifact == null )
+        {
+            if ( failIfNotFound )
+            {
+                throw new MojoFailureException( "The artifact '" + key + "' is not in the index '" + indexFile + "'" );
+            }
+            getLog().info( "The artifact '" + key + "' is not in the index." );
+            return;
+        }
+
+        // The URL is printed as is (visible with 'mvn -q')
+        System.out.println( artifact.getUrl() );
+
+        if ( urlProperty != null && project != null )
+        {
+            project.getProperties().setProperty( urlProperty, artifact.getUrl() );
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary index of a manifest: the artifacts sorted by their key ('groupId:artifactId:classifier:type') with a
+ * fixed-width offset table, so an artifact is found with a binary search over the memory-mapped file (without
+ * parsing it).
+ * <p>
+ * Layout (big-endian): the magic 'BIDX', the version and the entry count (ints), an int offset per entry (from the
+ * start of the data section) and the entries. Each entry is a list of strings (an unsigned short length, 0xFFFF for
+ * null, and the UTF-8 bytes): the key, groupId, artifactId, version, classifier, type, url, sha1 and sha256; and the
+ * size (a long, -1 if unknown). The keys are sorted by their UTF-8 bytes (unsigned), so they are compared without
+ * decoding them.
+ */
+public class ManifestIndex
+    implements Closeable
+{
+    /**
+     * File magic.
+     */
+    private static final int MAGIC = 0x42494458;
+
+    /**
+     * Format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Header size: magic, version and count.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * Null string length.
+     */
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    /**
+     * Index file channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Mapped index.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Number of entries.
+     */
+    private final int count;
+
+    /**
+     * Start of the data section.
+     */
+    private final int dataStart;
+
+    /**
+     * Constructor.
+     */
+    private ManifestIndex( FileChannel channel, ByteBuffer buffer )
+        throws IOException
+    {
+        this.channel = channel;
+        this.buffer = buffer;
+
+        if ( buffer.limit() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC )
+        {
+            throw new IOException( "Not a manifest index" );
+        }
+        if ( buffer.getInt( 4 ) != VERSION )
+        {
+            throw new IOException( "Unsupported manifest index version: " + buffer.getInt( 4 ) );
+        }
+        this.count = buffer.getInt( 8 );
+        this.dataStart = HEADER_SIZE + 4 * count;
+        if ( count < 0 || dataStart > buffer.limit() )
+        {
+            throw new IOException( "Corrupted manifest index" );
+        }
+    }
+
+    /**
+     * Opens (memory-maps) an index file.
+     * @throws IOException The file cannot be read or it is not an index.
+     */
+    public static ManifestIndex open( File file )
+        throws IOException
+    {
+        FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+        try
+        {
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            return new ManifestIndex( channel, buffer );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of entries.
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Finds an artifact by its key ('groupId:artifactId:classifier:type', with an empty classifier for the main
+     * artifact). Returns null if it isn't in the index.
+     */
+    public MavenUploadedArtifact lookup( String key )
+    {
+        byte[] target = key.getBytes( StandardCharsets.UTF_8 );
+
+        int low = 0;
+        int high = count - 1;
+        while ( low <= high )
+        {
+            int middle = ( low + high ) >>> 1;
+            int position = dataStart + buffer.getInt( HEADER_SIZE + 4 * middle );
+            int comparison = compareKey( position, target );
+            if ( comparison < 0 )
+            {
+                low = middle + 1;
+            }
+            else if ( comparison > 0 )
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return readEntry( position );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes the index file.
+     */
+    public void close()
+        throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Compares the key of the entry at a position with a key (unsigned bytes).
+     */
+    private int compareKey( int position, byte[] target )
+    {
+        int length = buffer.getShort( position ) & 0xFFFF;
+        int start = position + 2;
+        int common = Math.min( length, target.length );
+        for ( int i = 0; i < common; i++ )
+        {
+            int difference = ( buffer.get( start + i ) & 0xFF ) - ( target[i] & 0xFF );
+            if ( difference != 0 )
+            {
+                return difference;
+            }
+        }
+        return length - target.length;
+    }
+
+    /**
+     * Decodes the entry at a position.
+     */
+    private MavenUploadedArtifact readEntry( int position )
+    {
+        String[] values = new String[9];
+        int offset = position;
+        for ( int i = 0; i < values.length; i++ )
+        {
+            int length = buffer.getShort( offset ) & 0xFFFF;
+            offset += 2;
+            if ( length != NULL_LENGTH )
+            {
+                byte[] bytes = new byte[length];
+                ByteBuffer slice = buffer.duplicate();
+                slice.position( offset );
+                slice.get( bytes );
+                values[i] = new String( bytes, StandardCharsets.UTF_8 );
+                offset += length;
+            }
+        }
+        long size = buffer.getLong( offset );
+
+        MavenUploadedArtifact artifact =
+            new MavenUploadedArtifact( values[1], values[2], values[3], values[4], values[5], values[6] );
+        artifact.setSha1( values[7] );
+        artifact.setSha256( values[8] );
+        artifact.setSize( ( size >= 0 ) ? Long.valueOf( size ) : null );
+        return artifact;
+    }
+
+    /**
+     * Writes the index of an artifact list (the first artifact of each key is indexed). The artifacts are encoded as
+     * they are read, so they may be flyweights.
+     * @throws IOException An error while writting the index.
+     */
+    public static void write( Iterable<MavenUploadedArtifact> artifacts, OutputStream out )
+        throws IOException
+    {
+        // Encoded entries (the key first), sorted by key (UTF-8, unsigned byte order)
+        List<byte[][]> entries = new ArrayList<byte[][]>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( 256 );
+        DataOutputStream entryOut = new DataOutputStream( buffer );
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            byte[] key = artifact.getKey().getBytes( StandardCharsets.UTF_8 );
+            buffer.reset();
+            writeBytes( entryOut, key );
+            writeString( entryOut, artifact.getGroupId() );
+            writeString( entryOut, artifact.getArtifactId() );
+            writeString( entryOut, artifact.getVersion() );
+            writeString( entryOut, artifact.getClassifier() );
+            writeString( entryOut, artifact.getType() );
+            writeString( entryOut, artifact.getUrl() );
+            writeString( entryOut, artifact.getSha1() );
+            writeString( entryOut, artifact.getSha256() );
+            entryOut.writeLong( ( artifact.getSize() != null ) ? artifact.getSize() : -1L );
+            entryOut.flush();
+            entries.add( new byte[][] { key, buffer.toByteArray() } );
+        }
+        entries.sort( ( a, b ) -> compare( a[0], b[0] ) );
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream( entries.size() * 256 );
+        List<Integer> offsets = new ArrayList<Integer>( entries.size() );
+        byte[] previous = null;
+        for ( byte[][] entry : entries )
+        {
+            if ( previous != null && compare( previous, entry[0] ) == 0 )
+            {
+                continue;
+            }
+            previous = entry[0];
+
+            offsets.add( data.size() );
+            data.write( entry[1] );
+        }
+
+        DataOutputStream header = new DataOutputStream( out );
+        header.writeInt( MAGIC );
+        header.writeInt( VERSION );
+        header.writeInt( offsets.size() );
+        for ( int offset : offsets )
+        {
+            header.writeInt( offset );
+        }
+        header.flush();
+        data.writeTo( out );
+    }
+
+    /**
+     * Writes a string (null: 0xFFFF).
+     */
+    private static void writeString( DataOutputStream out, String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeShort( NULL_LENGTH );
+            return;
+        }
+        writeBytes( out, value.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Writes a length-prefixed byte string.
+     */
+    private static void writeBytes( DataOutputStream out, byte[] bytes )
+        throws IOException
+    {
+        if ( bytes.length >= NULL_LENGTH )
+        {
+            throw new IOException( "Value too long for the manifest index (" + bytes.length + " bytes)" );
+        }
+        out.writeShort( bytes.length );
+        out.write( bytes );
+    }
+
+    /**
+     * Compares two byte strings (unsigned).
+     */
+    private static int compare( byte[] a, byte[] b )
+    {
+        int common = Math.min( a.length, b.length );
+        for ( int i = 0; i < common; i++ )
+        {
+            int difference = ( a[i] & 0xFF ) - ( b[i] & 0xFF );
+            if ( difference != 0 )
+            {
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,383 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads a manifest written by the 'artifacts' goal back into artifact records (streamed, record by record).
+ * <p>
+ * All formats with the groupId can be read: CSV (by its header, so the checksum columns are optional), JSON, ndjson,
+ * Smile, CBOR, XML and YAML. Text values 'null' are read as null, like they are written.
+ */
+public class ManifestReader
+{
+    /**
+     * Receives the records as they are read.
+     */
+    public interface Handler
+    {
+        /**
+         * A record has been read.
+         * @throws IOException An error while processing the record (reading stops).
+         */
+        void artifact( MavenUploadedArtifact artifact )
+            throws IOException;
+    }
+
+    /**
+     * XML input factory (thread-safe once configured).
+     */
+    private static final XMLInputFactory XML_FACTORY = new WstxInputFactory();
+
+    static
+    {
+        XML_FACTORY.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+    }
+
+    /**
+     * CSV separator character.
+     */
+    private final String csvSeparator;
+
+    /**
+     * Constructor.
+     */
+    public ManifestReader( String csvSeparator )
+    {
+        this.csvSeparator = csvSeparator;
+    }
+
+    /**
+     * Whether a format can be read (the shell formats cannot).
+     */
+    public static boolean canRead( String format )
+    {
+        return Common.OUTPUT_JSON.equalsIgnoreCase( format ) || Common.OUTPUT_NDJSON.equalsIgnoreCase( format )
+            || Common.OUTPUT_SMILE.equalsIgnoreCase( format ) || Common.OUTPUT_CBOR.equalsIgnoreCase( format )
+            || Common.OUTPUT_CSV.equalsIgnoreCase( format ) || Common.OUTPUT_YAML.equalsIgnoreCase( format )
+            || Common.OUTPUT_XML.equalsIgnoreCase( format );
+    }
+
+    /**
+     * Reads a manifest file (decompressed if it has a compression extension).
+     * @throws IOException The file cannot be read or its format is not supported.
+     */
+    public List<MavenUploadedArtifact> read( File file, String format )
+        throws IOException
+    {
+        List<MavenUploadedArtifact> list = new ArrayList<MavenUploadedArtifact>();
+        read( file, format, list::add );
+        return list;
+    }
+
+    /**
+     * Reads a manifest file record by record (decompressed if it has a compression extension).
+     * @throws IOException The file cannot be read, its format is not supported or the handler failed.
+     */
+    public void read( File file, String format, Handler handler )
+        throws IOException
+    {
+        try ( InputStream in = CompressionSupport.decompress( Files.newInputStream( file.toPath() ), file.getName() ) )
+        {
+            read( in, format, handler );
+        }
+    }
+
+    /**
+     * Reads a manifest from a stream (which is not closed).
+     * @throws IOException The stream cannot be read or its format is not supported.
+     */
+    public List<MavenUploadedArtifact> read( InputStream in, String format )
+        throws IOException
+    {
+        List<MavenUploadedArtifact> list = new ArrayList<MavenUploadedArtifact>();
+        read( in, format, list::add );
+        return list;
+    }
+
+    /**
+     * Reads a manifest from a stream (which is not closed) record by record, without keeping the records.
+     * @throws IOException The stream cannot be read, its format is not supported or the handler failed.
+     */
+    public void read( InputStream in, String format, Handler handler )
+        throws IOException
+    {
+        if ( Common.OUTPUT_JSON.equalsIgnoreCase( format ) || Common.OUTPUT_NDJSON.equalsIgnoreCase( format ) )
+        {
+            readJson( JsonSupport.MAPPER.getFactory(), in, handler );
+        }
+        else if ( Common.OUTPUT_SMILE.equalsIgnoreCase( format ) )
+        {
+            readJson( new SmileFormatter().getMapper().getFactory(), in, handler );
+        }
+        else if ( Common.OUTPUT_CBOR.equalsIgnoreCase( format ) )
+        {
+            readJson( new CborFormatter().getMapper().getFactory(), in, handler );
+        }
+        else if ( Common.OUTPUT_CSV.equalsIgnoreCase( format ) )
+        {
+            readCsv( new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) ), handler );
+        }
+        else if ( Common.OUTPUT_YAML.equalsIgnoreCase( format ) )
+        {
+            readYaml( new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) ), handler );
+        }
+        else if ( Common.OUTPUT_XML.equalsIgnoreCase( format ) )
+        {
+            readXml( in, handler );
+        }
+        else
+        {
+            throw new IOException( "The format '" + format + "' cannot be read (it must include the groupId)" );
+        }
+    }
+
+    /**
+     * Reads a JSON document: an array of records or a sequence of records (ndjson).
+     */
+    private static void readJson( JsonFactory factory, InputStream in, Handler handler )
+        throws IOException
+    {
+        try ( JsonParser parser = factory.createParser( in ) )
+        {
+            parser.disable( JsonParser.Feature.AUTO_CLOSE_SOURCE );
+
+            JsonToken token;
+            while ( ( token = parser.nextToken() ) != null )
+            {
+                if ( token != JsonToken.START_OBJECT )
+                {
+                    continue;
+                }
+
+                MavenUploadedArtifact artifact = newArtifact();
+                while ( parser.nextToken() == JsonToken.FIELD_NAME )
+                {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if ( value.isStructStart() )
+                    {
+                        parser.skipChildren();
+                    }
+                    else
+                    {
+                        setField( artifact, name, ( value == JsonToken.VALUE_NULL ) ? null : parser.getText() );
+                    }
+                }
+                handler.artifact( artifact );
+            }
+        }
+    }
+
+    /**
+     * Reads a CSV document. The columns are taken from the header ('#groupId,artifactId,...').
+     */
+    private void readCsv( BufferedReader reader, Handler handler )
+        throws IOException
+    {
+        Pattern separator = Pattern.compile( csvSeparator, Pattern.LITERAL );
+
+        String line = reader.readLine();
+        if ( line == null )
+        {
+            return;
+        }
+        if ( !line.startsWith( "#" ) )
+        {
+            throw new IOException( "The CSV header is missing" );
+        }
+        String[] columns = separator.split( line.substring( 1 ), -1 );
+
+        while ( ( line = reader.readLine() ) != null )
+        {
+            if ( line.isEmpty() )
+            {
+                continue;
+            }
+
+            String[] values = separator.split( line, -1 );
+            MavenUploadedArtifact artifact = newArtifact();
+            for ( int i = 0; i < columns.length && i < values.length; i++ )
+            {
+                setField( artifact, columns[i], textValue( values[i] ) );
+            }
+            handler.artifact( artifact );
+        }
+    }
+
+    /**
+     * Reads a YAML document as written by the YAML output (" - name: 'value'" starts a record).
+     */
+    private static void readYaml( BufferedReader reader, Handler handler )
+        throws IOException
+    {
+        MavenUploadedArtifact artifact = null;
+
+        String line;
+        while ( ( line = reader.readLine() ) != null )
+        {
+            String trimmed = line.trim();
+            if ( trimmed.startsWith( "- " ) )
+            {
+                // A new record: the previous one is complete
+                if ( artifact != null )
+                {
+                    handler.artifact( artifact );
+                }
+                artifact = newArtifact();
+                trimmed = trimmed.substring( 2 ).trim();
+            }
+
+            int colon = trimmed.indexOf( ':' );
+            if ( artifact == null || colon <= 0 )
+            {
+                continue;
+            }
+
+            String value = trimmed.substring( colon + 1 ).trim();
+            if ( value.length() >= 2 && value.startsWith( "'" ) && value.endsWith( "'" ) )
+            {
+                value = value.substring( 1, value.length() - 1 );
+            }
+            setField( artifact, trimmed.substring( 0, colon ).trim(), textValue( value ) );
+        }
+        if ( artifact != null )
+        {
+            handler.artifact( artifact );
+        }
+    }
+
+    /**
+     * Reads an XML document ('artifacts' with an 'artifact' element per record).
+     */
+    private static void readXml( InputStream in, Handler handler )
+        throws IOException
+    {
+        try
+        {
+            XMLStreamReader reader = XML_FACTORY.createXMLStreamReader( in );
+            try
+            {
+                MavenUploadedArtifact artifact = null;
+                while ( reader.hasNext() )
+                {
+                    int event = reader.next();
+                    if ( event == XMLStreamConstants.END_ELEMENT && artifact != null
+                        && "artifact".equals( reader.getLocalName() ) )
+                    {
+                        handler.artifact( artifact );
+                        artifact = null;
+                        continue;
+                    }
+                    if ( event != XMLStreamConstants.START_ELEMENT )
+                    {
+                        continue;
+                    }
+
+                    String name = reader.getLocalName();
+                    if ( "artifact".equals( name ) )
+                    {
+                        artifact = newArtifact();
+                    }
+                    else if ( artifact != null )
+                    {
+                        setField( artifact, name, textValue( reader.getElementText() ) );
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( "Error while reading the XML manifest: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Creates an empty record.
+     */
+    private static MavenUploadedArtifact newArtifact()
+    {
+        return new MavenUploadedArtifact( null, null, null, null, null, null );
+    }
+
+    /**
+     * Text value of the text formats ('null' is a null value).
+     */
+    private static String textValue( String value )
+    {
+        return "null".equals( value ) ? null : value;
+    }
+
+    /**
+     * Sets a record field by its name (unknown fields are ignored).
+     */
+    private static void setField( MavenUploadedArtifact artifact, String name, String value )
+        throws IOException
+    {
+        switch ( name )
+        {
+            case "groupId":
+                artifact.setGroupId( value );
+                break;
+            case "artifactId":
+                artifact.setArtifactId( value );
+                break;
+            case "version":
+                artifact.setVersion( value );
+                break;
+            case "classifier":
+                artifact.setClassifier( value );
+                break;
+            case "type":
+                artifact.setType( value );
+                break;
+            case "url":
+                artifact.setUrl( value );
+                break;
+            // The checksum fields of an artifact without a file are empty in the CSV output
+            case "sha1":
+                artifact.setSha1( ( value != null && !value.isEmpty() ) ? value : null );
+                break;
+            case "sha256":
+                artifact.setSha256( ( value != null && !value.isEmpty() ) ? value : null );
+                break;
+            case "size":
+                try
+                {
+                    artifact.setSize( ( value != null && !value.isEmpty() ) ? Long.valueOf( value ) : null );
+                }
+                catch ( NumberFormatException e )
+                {
+                    throw new IOException( "Invalid artifact size: '" + value + "'", e );
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
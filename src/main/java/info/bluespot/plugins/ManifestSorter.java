@@ -0,0 +1,299 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * External sort of manifest records by their key ('groupId:artifactId:classifier:type').
+ * <p>
+ * The records are buffered up to a fixed number; each full buffer is sorted and spilled to a temporary run file, and
+ * the runs are merged with a priority queue when the records are read back. So the memory used doesn't depend on the
+ * manifest size. The sort is stable: records with the same key keep their manifest order. A small manifest (a single
+ * buffer) is never written to disk.
+ */
+public class ManifestSorter
+    implements Closeable
+{
+    /**
+     * Buffer size for the run files.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A record with its key (calculated once).
+     */
+    private static final class Entry
+    {
+        private final String key;
+
+        private final MavenUploadedArtifact artifact;
+
+        Entry( MavenUploadedArtifact artifact )
+        {
+            this.key = artifact.getKey();
+            this.artifact = artifact;
+        }
+    }
+
+    /**
+     * Order by key (stable sorts keep the input order of equal keys).
+     */
+    private static final Comparator<Entry> BY_KEY = ( a, b ) -> a.key.compareTo( b.key );
+
+    /**
+     * Sorted records, read one by one (null at the end).
+     */
+    public interface Cursor
+    {
+        /**
+         * Next record (null at the end).
+         * @throws IOException An error while reading a run file.
+         */
+        MavenUploadedArtifact next()
+            throws IOException;
+    }
+
+    /**
+     * Maximum number of records in memory.
+     */
+    private final int bufferSize;
+
+    /**
+     * Directory of the run files (null: the default temporary directory).
+     */
+    private final File tempDirectory;
+
+    /**
+     * Records not spilled yet.
+     */
+    private final List<Entry> buffer = new ArrayList<Entry>();
+
+    /**
+     * Run files (sorted).
+     */
+    private final List<Path> runs = new ArrayList<Path>();
+
+    /**
+     * Open run readers.
+     */
+    private final List<DataInputStream> readers = new ArrayList<DataInputStream>();
+
+    /**
+     * Constructor.
+     */
+    public ManifestSorter( int bufferSize, File tempDirectory )
+    {
+        this.bufferSize = Math.max( 1, bufferSize );
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Adds a record (the buffer is spilled to a run file when it's full).
+     * @throws IOException An error while writing a run file.
+     */
+    public void add( MavenUploadedArtifact artifact )
+        throws IOException
+    {
+        buffer.add( new Entry( artifact ) );
+        if ( buffer.size() >= bufferSize )
+        {
+            spill();
+        }
+    }
+
+    /**
+     * Sorts the records added so far and returns a cursor over them. The sorter must be closed after reading them.
+     * @throws IOException An error while writing or opening the run files.
+     */
+    public Cursor sort()
+        throws IOException
+    {
+        if ( runs.isEmpty() )
+        {
+            // Everything fits in memory
+            buffer.sort( BY_KEY );
+            Iterator<Entry> iterator = buffer.iterator();
+            return () -> iterator.hasNext() ? iterator.next().artifact : null;
+        }
+
+        if ( !buffer.isEmpty() )
+        {
+            spill();
+        }
+
+        // K-way merge: the queue has the next record of each run (by key, then by run to keep the sort stable)
+        Comparator<Object[]> order = ( a, b ) -> {
+            int comparison = BY_KEY.compare( (Entry) a[0], (Entry) b[0] );
+            return ( comparison != 0 ) ? comparison : Integer.compare( (Integer) a[1], (Integer) b[1] );
+        };
+        PriorityQueue<Object[]> heads = new PriorityQueue<Object[]>( runs.size(), order );
+        for ( int i = 0; i < runs.size(); i++ )
+        {
+            DataInputStream in =
+                new DataInputStream( new BufferedInputStream( Files.newInputStream( runs.get( i ) ), BUFFER_SIZE ) );
+            readers.add( in );
+            MavenUploadedArtifact first = readRecord( in );
+            if ( first != null )
+            {
+                heads.add( new Object[] { new Entry( first ), i } );
+            }
+        }
+
+        return () -> {
+            Object[] head = heads.poll();
+            if ( head == null )
+            {
+                return null;
+            }
+            int run = (Integer) head[1];
+            MavenUploadedArtifact next = readRecord( readers.get( run ) );
+            if ( next != null )
+            {
+                heads.add( new Object[] { new Entry( next ), run } );
+            }
+            return ( (Entry) head[0] ).artifact;
+        };
+    }
+
+    /**
+     * Closes and deletes the run files.
+     */
+    public void close()
+        throws IOException
+    {
+        IOException error = null;
+        for ( DataInputStream in : readers )
+        {
+            try
+            {
+                in.close();
+            }
+            catch ( IOException e )
+            {
+                error = e;
+            }
+        }
+        readers.clear();
+        for ( Path run : runs )
+        {
+            try
+            {
+                Files.deleteIfExists( run );
+            }
+            catch ( IOException e )
+            {
+                error = e;
+            }
+        }
+        runs.clear();
+        buffer.clear();
+
+        if ( error != null )
+        {
+            throw error;
+        }
+    }
+
+    /**
+     * Sorts the buffer and writes it to a new run file.
+     */
+    private void spill()
+        throws IOException
+    {
+        buffer.sort( BY_KEY );
+
+        Path run = ( tempDirectory != null ) ? Files.createTempFile( tempDirectory.toPath(), "manifest-", ".run" )
+                        : Files.createTempFile( "manifest-", ".run" );
+        runs.add( run );
+        try ( DataOutputStream out =
+            new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( run ), BUFFER_SIZE ) ) )
+        {
+            for ( Entry entry : buffer )
+            {
+                writeRecord( out, entry.artifact );
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes a record: a presence flag, then the text fields and the size.
+     */
+    private static void writeRecord( DataOutputStream out, MavenUploadedArtifact artifact )
+        throws IOException
+    {
+        out.writeBoolean( true );
+        writeString( out, artifact.getGroupId() );
+        writeString( out, artifact.getArtifactId() );
+        writeString( out, artifact.getVersion() );
+        writeString( out, artifact.getClassifier() );
+        writeString( out, artifact.getType() );
+        writeString( out, artifact.getUrl() );
+        writeString( out, artifact.getSha1() );
+        writeString( out, artifact.getSha256() );
+        out.writeLong( ( artifact.getSize() != null ) ? artifact.getSize() : -1L );
+    }
+
+    /**
+     * Reads a record (null at the end of the run).
+     */
+    private static MavenUploadedArtifact readRecord( DataInputStream in )
+        throws IOException
+    {
+        try
+        {
+            in.readBoolean();
+        }
+        catch ( EOFException e )
+        {
+            return null;
+        }
+
+        MavenUploadedArtifact artifact =
+            new MavenUploadedArtifact( readString( in ), readString( in ), readString( in ), readString( in ),
+                                       readString( in ), readString( in ) );
+        artifact.setSha1( readString( in ) );
+        artifact.setSha256( readString( in ) );
+        long size = in.readLong();
+        artifact.setSize( ( size >= 0 ) ? Long.valueOf( size ) : null );
+        return artifact;
+    }
+
+    /**
+     * Writes a nullable string.
+     */
+    private static void writeString( DataOutputStream out, String value )
+        throws IOException
+    {
+        out.writeBoolean( value != null );
+        if ( value != null )
+        {
+            out.writeUTF( value );
+        }
+    }
+
+    /**
+     * Reads a nullable string.
+     */
+    private static String readString( DataInputStream in )
+        throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -3,9 +3,17 @@
  */
 package info.bluespot.plugins;
 
+import java.io.File;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 /**
  * This class represents an Nexus artifact.
  */
+@JsonPropertyOrder( { "groupId", "artifactId", "version", "classifier", "type", "url", "sha1", "sha256", "size" } )
 public class MavenUploadedArtifact
 {
     /**
@@ -38,6 +46,30 @@ public class MavenUploadedArtifact
      */
     private String url = null;
 
+    /**
+     * SHA-1 digest (optional).
+     */
+    @JsonInclude( Include.NON_NULL )
+    private String sha1 = null;
+
+    /**
+     * SHA-256 digest (optional).
+     */
+    @JsonInclude( Include.NON_NULL )
+    private String sha256 = null;
+
+    /**
+     * File size in bytes (optional).
+     */
+    @JsonInclude( Include.NON_NULL )
+    private Long size = null;
+
+    /**
+     * Local file of the artifact (not published).
+     */
+    @JsonIgnore
+    private File file = null;
+
     /**
      * Constructor.
      */
@@ -111,4 +143,54 @@ public class MavenUploadedArtifact
     {
         this.url = url;
     }
+
+    public String getSha1()
+    {
+        return sha1;
+    }
+
+    public void setSha1( String sha1 )
+    {
+        this.sha1 = sha1;
+    }
+
+    public String getSha256()
+    {
+        return sha256;
+    }
+
+    public void setSha256( String sha256 )
+    {
+        this.sha256 = sha256;
+    }
+
+    public Long getSize()
+    {
+        return size;
+    }
+
+    public void setSize( Long size )
+    {
+        this.size = size;
+    }
+
+    /**
+     * Artifact key: 'groupId:artifactId:classifier:type' (an empty classifier for the main artifact).
+     */
+    @JsonIgnore
+    public String getKey()
+    {
+        return groupId + ':' + artifactId + ':' + ( ( classifier != null ) ? classifier : "" ) + ':' + type;
+    }
+
+    @JsonIgnore
+    public File getFile()
+    {
+        return file;
+    }
+
+    public void setFile( File file )
+    {
+        this.file = file;
+    }
 }
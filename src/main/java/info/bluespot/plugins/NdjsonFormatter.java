@@ -0,0 +1,29 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Newline delimited JSON output: one artifact object per line, so the consumers can process the records as they are
+ * read.
+ */
+public class NdjsonFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        JsonGenerator generator = JsonSupport.createGenerator( out, false );
+
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            JsonSupport.ARTIFACT_WRITER.writeValue( generator, artifact );
+            generator.writeRaw( '\n' );
+        }
+        generator.close();
+    }
+}
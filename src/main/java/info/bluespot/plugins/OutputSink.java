@@ -0,0 +1,179 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Streaming output destination for the formatters.
+ * <p>
+ * Records are encoded with an explicit charset and written through a buffered channel as they are produced, so the
+ * whole document is never held in memory.
+ */
+public class OutputSink
+    implements Closeable
+{
+    /**
+     * Buffer size for the output channel.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Line separator: always '\n', so the same content gives the same bytes on every platform (unchanged files are
+     * detected by their digest, see {@link AtomicFileSink}).
+     */
+    public static final String LINE_SEPARATOR = "\n";
+
+    /**
+     * Byte stream (buffered).
+     */
+    private final OutputStream stream;
+
+    /**
+     * Character writer over the byte stream.
+     */
+    private final Writer writer;
+
+    /**
+     * Whether the underlying stream must be closed with the sink.
+     */
+    private final boolean closeTarget;
+
+    /**
+     * Bytes written to the underlying stream.
+     */
+    private long bytesWritten = 0;
+
+    /**
+     * Constructor.
+     */
+    protected OutputSink( OutputStream stream, Charset charset, boolean closeTarget )
+    {
+        this.stream = new BufferedOutputStream( new FilterOutputStream( stream )
+        {
+            public void write( int b )
+                throws IOException
+            {
+                out.write( b );
+                bytesWritten++;
+            }
+
+            public void write( byte[] b, int off, int len )
+                throws IOException
+            {
+                out.write( b, off, len );
+                bytesWritten += len;
+            }
+        }, BUFFER_SIZE );
+        this.writer = new OutputStreamWriter( this.stream, charset );
+        this.closeTarget = closeTarget;
+    }
+
+    /**
+     * Opens a sink over a file using UTF-8. The file is replaced atomically on commit (only if its content changes).
+     */
+    public static OutputSink toFile( String outputFile )
+        throws IOException
+    {
+        return AtomicFileSink.open( Paths.get( outputFile ) );
+    }
+
+    /**
+     * Opens a sink over the standard output using UTF-8, like the files (the standard output is not closed with the
+     * sink).
+     */
+    public static OutputSink toStdout()
+    {
+        return new OutputSink( System.out, StandardCharsets.UTF_8, false );
+    }
+
+    /**
+     * Appends a text value ('null' for null values).
+     */
+    public OutputSink append( String value )
+        throws IOException
+    {
+        writer.write( String.valueOf( value ) );
+        return this;
+    }
+
+    /**
+     * Appends an integer value.
+     */
+    public OutputSink append( int value )
+        throws IOException
+    {
+        writer.write( Integer.toString( value ) );
+        return this;
+    }
+
+    /**
+     * Ends the current line.
+     */
+    public OutputSink newLine()
+        throws IOException
+    {
+        writer.write( LINE_SEPARATOR );
+        return this;
+    }
+
+    /**
+     * Character writer for text formatters that need direct access (e.g. JSON generators).
+     */
+    public Writer getWriter()
+    {
+        return writer;
+    }
+
+    /**
+     * Byte stream for binary formatters. Pending characters are flushed first.
+     */
+    public OutputStream getStream()
+        throws IOException
+    {
+        writer.flush();
+        return stream;
+    }
+
+    /**
+     * Bytes written to the target so far (before compression).
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    /**
+     * Completes the output (file sinks are moved into place).
+     * @return Whether the target has been written (false if a file hasn't changed).
+     */
+    public boolean commit()
+        throws IOException
+    {
+        writer.flush();
+        return true;
+    }
+
+    /**
+     * Flushes the pending content and closes the target (if owned).
+     */
+    public void close()
+        throws IOException
+    {
+        writer.flush();
+        if ( closeTarget )
+        {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches text against a set of glob patterns ('*': any sequence of characters but the field separator ':') with a
+ * single automaton.
+ * <p>
+ * All patterns are compiled together into a lazily built DFA: each state is the set of pattern positions that are
+ * still alive and its transitions are calculated (once) when they are used. So a text is matched in a single pass,
+ * one transition per character, however many patterns there are. This class is thread-safe.
+ */
+public class PatternMatcher
+{
+    /**
+     * Field separator (not matched by '*').
+     */
+    public static final char SEPARATOR = ':';
+
+    /**
+     * Wildcard character.
+     */
+    private static final char WILDCARD = '*';
+
+    /**
+     * Token kind: a literal character.
+     */
+    private static final byte LITERAL = 0;
+
+    /**
+     * Token kind: a wildcard.
+     */
+    private static final byte ANY = 1;
+
+    /**
+     * Token kind: the end of a pattern.
+     */
+    private static final byte END = 2;
+
+    /**
+     * A DFA state: a set of alive pattern positions and its transitions.
+     */
+    public final class State
+    {
+        private final BitSet positions;
+
+        private final boolean accepting;
+
+        private final State[] asciiNext = new State[128];
+
+        private final Map<Character, State> otherNext = new ConcurrentHashMap<Character, State>();
+
+        State( BitSet positions )
+        {
+            this.positions = positions;
+            boolean accept = false;
+            for ( int position = positions.nextSetBit( 0 ); position >= 0 && !accept;
+                  position = positions.nextSetBit( position + 1 ) )
+            {
+                accept = kinds[position] == END;
+            }
+            this.accepting = accept;
+        }
+
+        /**
+         * Next state for a character.
+         */
+        public State next( char c )
+        {
+            State next = ( c < 128 ) ? asciiNext[c] : otherNext.get( c );
+            return ( next != null ) ? next : transition( this, c );
+        }
+
+        /**
+         * Whether no pattern can match anymore.
+         */
+        public boolean isDead()
+        {
+            return positions.isEmpty();
+        }
+
+        /**
+         * Whether a pattern matches the text consumed so far.
+         */
+        public boolean isAccepting()
+        {
+            return accepting;
+        }
+    }
+
+    /**
+     * Pattern tokens, all patterns one after another (each one ends with an END token).
+     */
+    private final char[] tokens;
+
+    /**
+     * Kind of each token.
+     */
+    private final byte[] kinds;
+
+    /**
+     * Interned DFA states (guarded by 'this').
+     */
+    private final Map<BitSet, State> states = new HashMap<BitSet, State>();
+
+    /**
+     * Initial state.
+     */
+    private final State initial;
+
+    /**
+     * Constructor.
+     */
+    public PatternMatcher( List<String> patterns )
+    {
+        StringBuilder chars = new StringBuilder();
+        StringBuilder types = new StringBuilder();
+        BitSet starts = new BitSet();
+
+        for ( String pattern : patterns )
+        {
+            starts.set( chars.length() );
+            boolean previousWildcard = false;
+            for ( int i = 0; i < pattern.length(); i++ )
+            {
+                char c = pattern.charAt( i );
+                // Consecutive wildcards are the same as one
+                if ( c != WILDCARD || !previousWildcard )
+                {
+                    chars.append( c );
+                    types.append( (char) ( ( c == WILDCARD ) ? ANY : LITERAL ) );
+                }
+                previousWildcard = c == WILDCARD;
+            }
+            chars.append( ' ' );
+            types.append( (char) END );
+        }
+
+        this.tokens = chars.toString().toCharArray();
+        this.kinds = new byte[tokens.length];
+        for ( int i = 0; i < kinds.length; i++ )
+        {
+            kinds[i] = (byte) types.charAt( i );
+        }
+
+        this.initial = intern( closure( starts ) );
+    }
+
+    /**
+     * Initial state (nothing consumed).
+     */
+    public State getInitialState()
+    {
+        return initial;
+    }
+
+    /**
+     * Matches a whole text.
+     */
+    public boolean matches( CharSequence text )
+    {
+        State state = initial;
+        for ( int i = 0; i < text.length() && !state.isDead(); i++ )
+        {
+            state = state.next( text.charAt( i ) );
+        }
+        return state.isAccepting();
+    }
+
+    /**
+     * Calculates (and caches) a transition.
+     */
+    private synchronized State transition( State from, char c )
+    {
+        BitSet next = new BitSet( tokens.length );
+        for ( int position = from.positions.nextSetBit( 0 ); position >= 0;
+              position = from.positions.nextSetBit( position + 1 ) )
+        {
+            if ( kinds[position] == ANY )
+            {
+                if ( c != SEPARATOR )
+                {
+                    next.set( position );
+                }
+            }
+            else if ( kinds[position] == LITERAL && tokens[position] == c )
+            {
+                next.set( position + 1 );
+            }
+        }
+
+        State state = intern( closure( next ) );
+        if ( c < 128 )
+        {
+            from.asciiNext[c] = state;
+        }
+        else
+        {
+            from.otherNext.put( c, state );
+        }
+        return state;
+    }
+
+    /**
+     * Adds the positions after the wildcards (a wildcard may match an empty sequence).
+     */
+    private BitSet closure( BitSet positions )
+    {
+        for ( int position = positions.nextSetBit( 0 ); position >= 0;
+              position = positions.nextSetBit( position + 1 ) )
+        {
+            if ( kinds[position] == ANY )
+            {
+                positions.set( position + 1 );
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the unique state of a position set.
+     */
+    private synchronized State intern( BitSet positions )
+    {
+        State state = states.get( positions );
+        if ( state == null )
+        {
+            state = new State( positions );
+            states.put( positions, state );
+        }
+        return state;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session-scoped collector for the 'artifacts' goal.
+ * <p>
+ * When the plugin is loaded as a build extension (<code>&lt;extensions&gt;true&lt;/extensions&gt;</code>), each
+ * module just registers itself when the goal runs on it and the manifest is written once, at the end of the
+ * session, with the modules in reactor order. This is safe under parallel builds (<code>-T</code>), where the last
+ * project in the reactor is not necessarily the last one to finish.
+ */
+@Named
+@Singleton
+public class ReactorArtifactCollector
+    extends AbstractMavenLifecycleParticipant
+{
+    /**
+     * Build log (Maven binds SLF4J to its console).
+     */
+    private final Logger logger = LoggerFactory.getLogger( ReactorArtifactCollector.class );
+
+    /**
+     * Whether the collector is receiving the session events (only when loaded as an extension).
+     */
+    private volatile boolean active = false;
+
+    /**
+     * Manifest factory registered by each module (with the module's configuration).
+     */
+    private final Map<MavenProject, SharedCaches.Factory<ArtifactManifest>> registered =
+        new ConcurrentHashMap<MavenProject, SharedCaches.Factory<ArtifactManifest>>();
+
+    /**
+     * Session start: the collector is active.
+     */
+    public void afterProjectsRead( MavenSession session )
+    {
+        registered.clear();
+        active = true;
+    }
+
+    /**
+     * Whether the modules should be registered in the collector instead of processing the reactor themselves.
+     */
+    public boolean isActive()
+    {
+        return active;
+    }
+
+    /**
+     * Registers a finished module (the manifest is only created for the last one, at the session end).
+     */
+    public void register( MavenProject project, SharedCaches.Factory<ArtifactManifest> manifest )
+    {
+        registered.put( project, manifest );
+    }
+
+    /**
+     * Session end: writes the manifest with all registered modules.
+     */
+    public void afterSessionEnd( MavenSession session )
+        throws MavenExecutionException
+    {
+        active = false;
+
+        if ( registered.isEmpty() )
+        {
+            return;
+        }
+
+        if ( session.getResult().hasExceptions() )
+        {
+            logger.warn( "The build has failed: the artifact information will not be written." );
+            registered.clear();
+            return;
+        }
+
+        // Registered modules in reactor order; the configuration is taken from the last one
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        SharedCaches.Factory<ArtifactManifest> factory = null;
+
+        for ( MavenProject project : session.getProjects() )
+        {
+            if ( registered.containsKey( project ) )
+            {
+                projects.add( project );
+                factory = registered.get( project );
+            }
+        }
+        registered.clear();
+
+        if ( factory == null )
+        {
+            return;
+        }
+
+        try
+        {
+            ArtifactManifest manifest = factory.create();
+            manifest.processAllProjects( projects );
+            manifest.write();
+            manifest.logSummary();
+        }
+        catch ( MojoFailureException e )
+        {
+            throw new MavenExecutionException( e.getMessage(), e );
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+
+/**
+ * Maven 2 repository layout: calculates the upload URL of the artifacts in a repository. Based on the
+ * "Maven2RepositoryLayoutFactory.java" (aether-core).
+ * <p>
+ * The repository base URL is normalized once and the path prefix of each groupId is cached, so each URL is built
+ * with a single pre-sized buffer (this class is thread-safe).
+ */
+public class RepositoryLayout
+{
+    /**
+     * Hexadecimal digits for the URI escaping.
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * ASCII characters that are allowed in a URI path without escaping (see <code>java.net.URI</code>).
+     */
+    private static final boolean[] PATH_CHARS = new boolean[128];
+
+    static
+    {
+        for ( char c = 'a'; c <= 'z'; c++ )
+        {
+            PATH_CHARS[c] = true;
+        }
+        for ( char c = 'A'; c <= 'Z'; c++ )
+        {
+            PATH_CHARS[c] = true;
+        }
+        for ( char c = '0'; c <= '9'; c++ )
+        {
+            PATH_CHARS[c] = true;
+        }
+        for ( char c : "-_.!~*'()/@:&=+$,;".toCharArray() )
+        {
+            PATH_CHARS[c] = true;
+        }
+    }
+
+    /**
+     * Repository base URL (normalized, without the trailing slash).
+     */
+    private final String baseUrl;
+
+    /**
+     * Artifact handlers (for artifacts without their own handler). May be null.
+     */
+    private final ArtifactHandlerManager artifactHandlerManager;
+
+    /**
+     * Cached '&lt;baseUrl&gt;/&lt;groupId path&gt;/' prefixes.
+     */
+    private final Map<String, String> groupPrefixes;
+
+    /**
+     * Constructor.
+     */
+    public RepositoryLayout( String repositoryUrl, ArtifactHandlerManager artifactHandlerManager )
+    {
+        String url = normalizeSlashes( repositoryUrl );
+        int end = url.length();
+        while ( end > 0 && url.charAt( end - 1 ) == '/' )
+        {
+            end--;
+        }
+        this.baseUrl = url.substring( 0, end );
+        this.artifactHandlerManager = artifactHandlerManager;
+        this.groupPrefixes = new ConcurrentHashMap<String, String>();
+    }
+
+    /**
+     * Constructor of a layout sharing the URL and the cached prefixes of another one.
+     */
+    private RepositoryLayout( RepositoryLayout layout, ArtifactHandlerManager artifactHandlerManager )
+    {
+        this.baseUrl = layout.baseUrl;
+        this.artifactHandlerManager = artifactHandlerManager;
+        this.groupPrefixes = layout.groupPrefixes;
+    }
+
+    /**
+     * The same layout (sharing its cached prefixes) with other artifact handlers: a layout kept across builds doesn't
+     * hold the components of a build.
+     */
+    public RepositoryLayout withArtifactHandlerManager( ArtifactHandlerManager artifactHandlerManager )
+    {
+        return new RepositoryLayout( this, artifactHandlerManager );
+    }
+
+    /**
+     * Repository base URL.
+     */
+    public String getBaseUrl()
+    {
+        return baseUrl;
+    }
+
+    /**
+     * Gets the artifact URL.
+     */
+    public String getUrl( Artifact artifact )
+    {
+        String prefix = groupPrefixes.get( artifact.getGroupId() );
+        if ( prefix == null )
+        {
+            StringBuilder sb = new StringBuilder( baseUrl.length() + artifact.getGroupId().length() + 2 );
+            sb.append( baseUrl ).append( '/' );
+            appendPath( sb, artifact.getGroupId().replace( '.', '/' ) );
+            sb.append( '/' );
+            prefix = sb.toString();
+            groupPrefixes.put( artifact.getGroupId(), prefix );
+        }
+
+        // 'artifact.getBaseVersion()' - returns '0.1.2-SNAPSHOT'
+        // 'artifact.getVersion()' - replaces the 'SNAPSHOT' for a timestamp
+        String artifactId = artifact.getArtifactId();
+        String version = artifact.getBaseVersion();
+        String classifier = artifact.getClassifier();
+        String extension = getExtension( artifact );
+
+        StringBuilder url = new StringBuilder( prefix.length() + 2 * ( artifactId.length() + version.length() ) + 32 );
+        url.append( prefix );
+        appendPath( url, artifactId );
+        url.append( '/' );
+        appendPath( url, version );
+        url.append( '/' );
+        appendPath( url, artifactId );
+        url.append( '-' );
+        appendPath( url, version );
+
+        if ( ( classifier != null ) && ( classifier.length() > 0 ) )
+        {
+            url.append( '-' );
+            appendPath( url, classifier );
+        }
+
+        if ( extension != null )
+        {
+            url.append( '.' );
+            appendPath( url, extension );
+        }
+
+        // Repeated slashes (e.g. a '..' in the groupId) are collapsed in the whole URL, not only in the base URL; the
+        // same string is returned when there are none (the usual case)
+        return normalizeSlashes( url.toString() );
+    }
+
+    /**
+     * Gets the file extension from the artifact handler (see: maven-core/src/site/apt/artifact-handlers.apt).
+     */
+    public String getExtension( Artifact artifact )
+    {
+        ArtifactHandler handler = artifact.getArtifactHandler();
+
+        if ( ( handler == null || handler.getExtension() == null ) && artifactHandlerManager != null
+            && artifact.getType() != null )
+        {
+            handler = artifactHandlerManager.getArtifactHandler( artifact.getType() );
+        }
+
+        if ( handler != null && handler.getExtension() != null )
+        {
+            return handler.getExtension();
+        }
+        return artifact.getType();
+    }
+
+    /**
+     * Appends a path segment, escaping the characters that are not allowed in a URI path.
+     */
+    private static void appendPath( StringBuilder sb, String segment )
+    {
+        for ( int i = 0; i < segment.length(); i++ )
+        {
+            char c = segment.charAt( i );
+
+            if ( c < 128 ? PATH_CHARS[c] : !( Character.isSpaceChar( c ) || Character.isISOControl( c ) ) )
+            {
+                sb.append( c );
+            }
+            else if ( c < 128 )
+            {
+                appendEscaped( sb, (byte) c );
+            }
+            else
+            {
+                for ( byte b : String.valueOf( c ).getBytes( StandardCharsets.UTF_8 ) )
+                {
+                    appendEscaped( sb, b );
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends an escaped octet ('%XX').
+     */
+    private static void appendEscaped( StringBuilder sb, byte b )
+    {
+        sb.append( '%' ).append( HEX_DIGITS[( b >> 4 ) & 0x0F] ).append( HEX_DIGITS[b & 0x0F] );
+    }
+
+    /**
+     * Collapses repeated slashes (except the ones after the scheme, like 'http://').
+     */
+    public static String normalizeSlashes( String url )
+    {
+        StringBuilder sb = null;
+        int length = url.length();
+        int i = 0;
+
+        while ( i < length )
+        {
+            char c = url.charAt( i );
+            if ( c != '/' )
+            {
+                if ( sb != null )
+                {
+                    sb.append( c );
+                }
+                i++;
+                continue;
+            }
+
+            // A run of slashes: keep two after a ':' (or a space, or the beginning) and one otherwise
+            int end = i;
+            while ( end < length && url.charAt( end ) == '/' )
+            {
+                end++;
+            }
+            char previous = ( i > 0 ) ? url.charAt( i - 1 ) : ':';
+            int keep = ( previous == ':' || Character.isWhitespace( previous ) ) ? Math.min( end - i, 2 ) : 1;
+
+            if ( sb == null && keep != end - i )
+            {
+                sb = new StringBuilder( length );
+                sb.append( url, 0, i );
+            }
+            if ( sb != null )
+            {
+                for ( int k = 0; k < keep; k++ )
+                {
+                    sb.append( '/' );
+                }
+            }
+            i = end;
+        }
+
+        return ( sb != null ) ? sb.toString() : url;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+/**
+ * 'sh-export' output.
+ */
+public class ShExportFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        int idx = 0;
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            idx++;
+            out.append( "ARTIFACT_" ).append( idx ).append( "_ID='" ).append( artifact.getArtifactId() ).append( "'" )
+                .newLine();
+            out.append( "ARTIFACT_" ).append( idx ).append( "_VERSION='" ).append( artifact.getVersion() )
+                .append( "'" ).newLine();
+            out.append( "ARTIFACT_" ).append( idx ).append( "_CLASSIFIER='" ).append( artifact.getClassifier() )
+                .append( "'" ).newLine();
+            out.append( "ARTIFACT_" ).append( idx ).append( "_TYPE='" ).append( artifact.getType() ).append( "'" )
+                .newLine();
+            out.append( "ARTIFACT_" ).append( idx ).append( "_URL='" ).append( artifact.getUrl() ).append( "'" )
+                .newLine();
+            if ( artifact.getSize() != null )
+            {
+                out.append( "ARTIFACT_" ).append( idx ).append( "_SHA1='" ).append( artifact.getSha1() )
+                    .append( "'" ).newLine();
+                out.append( "ARTIFACT_" ).append( idx ).append( "_SHA256='" ).append( artifact.getSha256() )
+                    .append( "'" ).newLine();
+                out.append( "ARTIFACT_" ).append( idx ).append( "_SIZE=" )
+                    .append( String.valueOf( artifact.getSize() ) ).newLine();
+            }
+        }
+        out.append( "ARTIFACT_COUNT=" ).append( idx ).newLine();
+    }
+}
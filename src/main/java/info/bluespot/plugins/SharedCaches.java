@@ -0,0 +1,143 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Process-wide cache of immutable resources built from the plugin configuration (compiled filters, repository
+ * layouts, formatters).
+ * <p>
+ * The entries are keyed by the whole configuration they are built from, so a configuration change just uses another
+ * entry. They live as long as the plugin class loader: in a persistent JVM (like the Maven daemon) the following
+ * builds and modules reuse them with their warm state (the automaton states of the filters, the groupId prefixes of
+ * the layouts...). The cache is bounded: the least recently used entries are evicted.
+ */
+public class SharedCaches
+{
+    /**
+     * Maximum number of entries.
+     */
+    private static final int MAX_ENTRIES = 64;
+
+    /**
+     * Creates a cache entry.
+     */
+    public interface Factory<T>
+    {
+        T create()
+            throws MojoFailureException;
+    }
+
+    /**
+     * Entries in LRU order (guarded by the map).
+     */
+    private static final Map<List<Object>, Object> ENTRIES = new LinkedHashMap<List<Object>, Object>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry( Map.Entry<List<Object>, Object> eldest )
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Gets the entry of a key, creating it if it doesn't exist (failures are not cached).
+     * @throws MojoFailureException The entry cannot be created.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> T get( List<Object> key, Factory<T> factory )
+        throws MojoFailureException
+    {
+        synchronized ( ENTRIES )
+        {
+            Object value = ENTRIES.get( key );
+            if ( value != null )
+            {
+                return (T) value;
+            }
+        }
+
+        // Created outside the lock: two threads may create the same entry, but only one is kept
+        T created = factory.create();
+        synchronized ( ENTRIES )
+        {
+            Object value = ENTRIES.get( key );
+            if ( value != null )
+            {
+                return (T) value;
+            }
+            ENTRIES.put( key, created );
+            return created;
+        }
+    }
+
+    /**
+     * Compiled include/exclude filter (null if there isn't any pattern).
+     * @throws MojoFailureException Invalid pattern.
+     */
+    public static ArtifactFilter getFilter( final List<String> includes, final List<String> excludes )
+        throws MojoFailureException
+    {
+        if ( ( includes == null || includes.isEmpty() ) && ( excludes == null || excludes.isEmpty() ) )
+        {
+            return null;
+        }
+        return get( Arrays.<Object> asList( "filter", copy( includes ), copy( excludes ) ),
+                    () -> ArtifactFilter.compile( includes, excludes ) );
+    }
+
+    /**
+     * Compiled output template (null if there isn't any template).
+     * @throws MojoFailureException Invalid template.
+     */
+    public static TemplateFormatter getTemplate( final String template )
+        throws MojoFailureException
+    {
+        if ( template == null )
+        {
+            return null;
+        }
+        return get( Arrays.<Object> asList( "template", template ), () -> TemplateFormatter.compile( template ) );
+    }
+
+    /**
+     * Repository layout of a repository URL with the artifact handlers of the current build.
+     * <p>
+     * Only the layout state (the groupId prefixes) is cached: the handlers are a container component, so a new layout
+     * sharing that state is created for them and the cache doesn't keep the container of a finished build (the Maven
+     * daemon starts a new one per build).
+     */
+    public static RepositoryLayout getLayout( final String repositoryUrl,
+                                              final ArtifactHandlerManager artifactHandlerManager )
+    {
+        try
+        {
+            return get( Arrays.<Object> asList( "layout", repositoryUrl ),
+                        () -> new RepositoryLayout( repositoryUrl, null ) )
+                .withArtifactHandlerManager( artifactHandlerManager );
+        }
+        catch ( MojoFailureException e )
+        {
+            // A layout is always created
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Copy of a configuration list (the key must not change).
+     */
+    private static List<String> copy( List<String> list )
+    {
+        return ( list != null ) ? new ArrayList<String>( list ) : null;
+    }
+}
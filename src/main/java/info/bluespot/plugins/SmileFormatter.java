@@ -0,0 +1,30 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Smile (binary JSON) output. Repeated values (groupIds, versions, types...) are written as back-references.
+ */
+public class SmileFormatter
+    extends BinaryJsonFormatter
+{
+    /**
+     * Smile mapper (shared, thread-safe).
+     */
+    private static final ObjectMapper MAPPER =
+        new ObjectMapper( new SmileFactory().enable( SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES )
+            .disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET ) )
+                .disable( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+
+    protected ObjectMapper getMapper()
+    {
+        return MAPPER;
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * User-defined output: a line per artifact rendered from a template like '${groupId}:${artifactId} ${url}'.
+ * <p>
+ * Fields: groupId, artifactId, version, classifier, type, url, sha1, sha256, size and key
+ * ('groupId:artifactId:classifier:type'); null values are empty. '$$' is a '$', '\t' and '\n' are a tab and a line
+ * separator, and '\\' is a backslash. The template is compiled once into a render plan (the literal texts and the field
+ * getters between them), so each artifact is written without parsing anything.
+ */
+public class TemplateFormatter
+    implements ArtifactFormatter
+{
+    /**
+     * Field getter.
+     */
+    private interface Field
+    {
+        String get( MavenUploadedArtifact artifact );
+    }
+
+    /**
+     * Template fields by name.
+     */
+    private static final Map<String, Field> FIELDS = new LinkedHashMap<String, Field>();
+
+    static
+    {
+        FIELDS.put( "groupId", MavenUploadedArtifact::getGroupId );
+        FIELDS.put( "artifactId", MavenUploadedArtifact::getArtifactId );
+        FIELDS.put( "version", MavenUploadedArtifact::getVersion );
+        FIELDS.put( "classifier", MavenUploadedArtifact::getClassifier );
+        FIELDS.put( "type", MavenUploadedArtifact::getType );
+        FIELDS.put( "url", MavenUploadedArtifact::getUrl );
+        FIELDS.put( "sha1", MavenUploadedArtifact::getSha1 );
+        FIELDS.put( "sha256", MavenUploadedArtifact::getSha256 );
+        FIELDS.put( "size", artifact -> ( artifact.getSize() != null ) ? artifact.getSize().toString() : null );
+        FIELDS.put( "key", MavenUploadedArtifact::getKey );
+    }
+
+    /**
+     * Literal texts: before each field, and after the last one.
+     */
+    private final String[] literals;
+
+    /**
+     * Fields, in template order.
+     */
+    private final Field[] fields;
+
+    /**
+     * Constructor.
+     */
+    private TemplateFormatter( String[] literals, Field[] fields )
+    {
+        this.literals = literals;
+        this.fields = fields;
+    }
+
+    /**
+     * Compiles a template.
+     * @throws MojoFailureException Invalid template (unknown field, unclosed '${'...).
+     */
+    public static TemplateFormatter compile( String template )
+        throws MojoFailureException
+    {
+        if ( template == null || template.isEmpty() )
+        {
+            throw new MojoFailureException( "The 'template' format needs a template" );
+        }
+
+        List<String> literals = new ArrayList<String>();
+        List<Field> fields = new ArrayList<Field>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while ( i < template.length() )
+        {
+            char c = template.charAt( i );
+            char next = ( i + 1 < template.length() ) ? template.charAt( i + 1 ) : 0;
+
+            if ( c == '$' && next == '$' )
+            {
+                literal.append( '$' );
+                i += 2;
+            }
+            else if ( c == '$' && next == '{' )
+            {
+                int end = template.indexOf( '}', i + 2 );
+                if ( end < 0 )
+                {
+                    throw new MojoFailureException( "Unclosed field in the template: '" + template + "'" );
+                }
+                String name = template.substring( i + 2, end ).trim();
+                Field field = FIELDS.get( name );
+                if ( field == null )
+                {
+                    throw new MojoFailureException( "Unknown template field: '" + name + "' (valid fields: "
+                        + String.join( ", ", FIELDS.keySet() ) + ")" );
+                }
+                literals.add( literal.toString() );
+                fields.add( field );
+                literal.setLength( 0 );
+                i = end + 1;
+            }
+            else if ( c == '\\' && ( next == 't' || next == 'n' || next == '\\' ) )
+            {
+                literal.append( ( next == 't' ) ? "\t" : ( next == 'n' ) ? OutputSink.LINE_SEPARATOR : "\\" );
+                i += 2;
+            }
+            else
+            {
+                literal.append( c );
+                i++;
+            }
+        }
+        literals.add( literal.toString() );
+
+        return new TemplateFormatter( literals.toArray( new String[literals.size()] ),
+                                      fields.toArray( new Field[fields.size()] ) );
+    }
+
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            for ( int i = 0; i < fields.length; i++ )
+            {
+                if ( !literals[i].isEmpty() )
+                {
+                    out.append( literals[i] );
+                }
+                String value = fields[i].get( artifact );
+                if ( value != null )
+                {
+                    out.append( value );
+                }
+            }
+            if ( !literals[fields.length].isEmpty() )
+            {
+                out.append( literals[fields.length] );
+            }
+            out.newLine();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * XML output, streamed through StAX (the values are escaped).
+ */
+public class XmlFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        try
+        {
+            XMLStreamWriter writer = XmlSupport.createWriter( out );
+            writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+            writer.writeStartElement( "artifacts" );
+
+            for ( MavenUploadedArtifact artifact : artifacts )
+            {
+                writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+                writer.writeCharacters( "  " );
+                writer.writeStartElement( "artifact" );
+                XmlSupport.writeElement( writer, "    ", "artifactId", artifact.getArtifactId() );
+                XmlSupport.writeElement( writer, "    ", "groupId", artifact.getGroupId() );
+                XmlSupport.writeElement( writer, "    ", "version", artifact.getVersion() );
+                XmlSupport.writeElement( writer, "    ", "classifier", artifact.getClassifier() );
+                XmlSupport.writeElement( writer, "    ", "type", artifact.getType() );
+                XmlSupport.writeElement( writer, "    ", "url", artifact.getUrl() );
+                if ( artifact.getSize() != null )
+                {
+                    XmlSupport.writeElement( writer, "    ", "sha1", artifact.getSha1() );
+                    XmlSupport.writeElement( writer, "    ", "sha256", artifact.getSha256() );
+                    XmlSupport.writeElement( writer, "    ", "size", String.valueOf( artifact.getSize() ) );
+                }
+                writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+                writer.writeCharacters( "  " );
+                writer.writeEndElement();
+            }
+            writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+            writer.writeEndElement();
+
+            XmlSupport.close( writer );
+        }
+        catch ( XMLStreamException e )
+        {
+            throw XmlSupport.toIOException( e );
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.ctc.wstx.api.WstxOutputProperties;
+import com.ctc.wstx.stax.WstxOutputFactory;
+
+/**
+ * Shared StAX (Woodstox) objects for the XML outputs.
+ */
+public class XmlSupport
+{
+    /**
+     * Output factory (thread-safe once configured).
+     */
+    private static final XMLOutputFactory FACTORY = new WstxOutputFactory();
+
+    static
+    {
+        FACTORY.setProperty( WstxOutputProperties.P_USE_DOUBLE_QUOTES_IN_XML_DECL, Boolean.TRUE );
+    }
+
+    /**
+     * Creates a streaming writer over the sink and writes the XML declaration.
+     */
+    public static XMLStreamWriter createWriter( OutputSink out )
+        throws XMLStreamException
+    {
+        XMLStreamWriter writer = FACTORY.createXMLStreamWriter( out.getWriter() );
+        writer.writeStartDocument( "UTF-8", "1.0" );
+        return writer;
+    }
+
+    /**
+     * Writes an indented element with a text value ('null' for null values).
+     */
+    public static void writeElement( XMLStreamWriter writer, String indent, String name, String value )
+        throws XMLStreamException
+    {
+        writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+        writer.writeCharacters( indent );
+        writer.writeStartElement( name );
+        writer.writeCharacters( String.valueOf( value ) );
+        writer.writeEndElement();
+    }
+
+    /**
+     * Closes the document (the sink is not closed).
+     */
+    public static void close( XMLStreamWriter writer )
+        throws XMLStreamException
+    {
+        writer.writeCharacters( OutputSink.LINE_SEPARATOR );
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    /**
+     * Wraps a StAX exception for the formatters.
+     */
+    public static IOException toIOException( XMLStreamException e )
+    {
+        return new IOException( "Error while writting the XML output: " + e.getMessage(), e );
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import java.io.IOException;
+
+/**
+ * YAML output.
+ */
+public class YamlFormatter
+    implements ArtifactFormatter
+{
+    public void format( Iterable<MavenUploadedArtifact> artifacts, OutputSink out )
+        throws IOException
+    {
+        out.append( "artifacts:" ).newLine();
+
+        for ( MavenUploadedArtifact artifact : artifacts )
+        {
+            out.append( " - artifactId: '" ).append( artifact.getArtifactId() ).append( "'" ).newLine();
+            out.append( "   groupId: '" ).append( artifact.getGroupId() ).append( "'" ).newLine();
+            out.append( "   version: '" ).append( artifact.getVersion() ).append( "'" ).newLine();
+            out.append( "   classifier: '" ).append( artifact.getClassifier() ).append( "'" ).newLine();
+            out.append( "   type: '" ).append( artifact.getType() ).append( "'" ).newLine();
+            out.append( "   url: '" ).append( artifact.getUrl() ).append( "'" ).newLine();
+            if ( artifact.getSize() != null )
+            {
+                out.append( "   sha1: '" ).append( artifact.getSha1() ).append( "'" ).newLine();
+                out.append( "   sha256: '" ).append( artifact.getSha256() ).append( "'" ).newLine();
+                out.append( "   size: " ).append( String.valueOf( artifact.getSize() ) ).newLine();
+            }
+        }
+    }
+}
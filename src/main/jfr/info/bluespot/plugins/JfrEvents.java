@@ -0,0 +1,106 @@
+/**
+ * Build-Info Maven Plugin.
+ */
+package info.bluespot.plugins;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the plugin. This class is only compiled on JDK 11+ (the 'jfr' profile) and only
+ * loaded when JFR is available (see {@link BuildMetrics}), so the plugin still builds and runs without it.
+ */
+public class JfrEvents
+    implements FlightRecorderEvents
+{
+    /**
+     * A phase of the 'artifacts' goal.
+     */
+    @Name( "info.bluespot.buildinfo.Phase" )
+    @Label( "Build-Info Phase" )
+    @Category( { "Maven", "Build-Info" } )
+    @Description( "A phase of the build-info 'artifacts' goal (scan, layout, checksums, merge, format, write)" )
+    static class PhaseEvent
+        extends Event
+    {
+        @Label( "Phase" )
+        String phase;
+
+        @Label( "Time" )
+        @Description( "Time spent in the phase: the event duration, or the total of a phase measured by parts (the "
+            + "event is then instantaneous)" )
+        @Timespan
+        long time;
+    }
+
+    /**
+     * Counters of an 'artifacts' goal execution.
+     */
+    @Name( "info.bluespot.buildinfo.Summary" )
+    @Label( "Build-Info Summary" )
+    @Category( { "Maven", "Build-Info" } )
+    @Description( "Counters of a build-info 'artifacts' goal execution" )
+    static class SummaryEvent
+        extends Event
+    {
+        @Label( "Projects" )
+        long projects;
+
+        @Label( "Projects Skipped" )
+        long projectsSkipped;
+
+        @Label( "Artifacts" )
+        long artifacts;
+
+        @Label( "Bytes Written" )
+        @DataAmount
+        long bytesWritten;
+    }
+
+    public boolean isRecording()
+    {
+        return FlightRecorder.isInitialized();
+    }
+
+    public Object beginPhase( String phase )
+    {
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void commitPhase( Object phase, long time )
+    {
+        PhaseEvent event = (PhaseEvent) phase;
+        event.time = time;
+        event.commit();
+    }
+
+    public Object beginSummary()
+    {
+        SummaryEvent event = new SummaryEvent();
+        event.begin();
+        return event;
+    }
+
+    public void commitSummary( Object summary, long projects, long projectsSkipped, long artifacts,
+                               long bytesWritten )
+    {
+        SummaryEvent event = (SummaryEvent) summary;
+        if ( event.shouldCommit() )
+        {
+            event.projects = projects;
+            event.projectsSkipped = projectsSkipped;
+            event.artifacts = artifacts;
+            event.bytesWritten = bytesWritten;
+            event.commit();
+        }
+    }
+}